@@ -0,0 +1,26 @@
+package br.uenp.compiladores.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ponto de entrada do benchmarks.jar: o Main do JMH, mas com os resultados em
+ * JSON por omissão (jmh-result.json), para comparar execuções entre commits.
+ * Opções -rf/-rff explícitas têm precedência.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add(0, "-rf");
+            options.add(1, "json");
+            if (!options.contains("-rff")) {
+                options.add(2, "-rff");
+                options.add(3, "jmh-result.json");
+            }
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
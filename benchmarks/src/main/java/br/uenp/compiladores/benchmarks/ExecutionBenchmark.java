@@ -0,0 +1,60 @@
+package br.uenp.compiladores.benchmarks;
+
+import br.uenp.compiladores.ExecutionContext;
+import br.uenp.compiladores.Main;
+import br.uenp.compiladores.Program;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execução de ponta a ponta. 'run' mede só o interpretador sobre o Program já
+ * rebaixado; 'compileAndRun' inclui análise léxica, sintática e rebaixamento
+ * (sem a cache em disco). A saída dos programas é descartada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dcsubset.cache=false")
+public class ExecutionBenchmark {
+
+    @Param({"fib", "loops", "arrays", "structs", "printf"})
+    public String workload;
+
+    private final PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+    private byte[] source;
+    private Program program;
+
+    @Setup
+    public void setup() {
+        source = Workloads.source(workload).getBytes(StandardCharsets.UTF_8);
+        program = Main.compile(source, workload, discard, discard);
+    }
+
+    @Benchmark
+    public void run() {
+        program.run(new ExecutionContext(InputStream.nullInputStream(), discard, discard));
+    }
+
+    @Benchmark
+    public void compileAndRun() {
+        Program compiled = Main.compile(source, workload, discard, discard);
+        compiled.run(new ExecutionContext(InputStream.nullInputStream(), discard, discard));
+    }
+}
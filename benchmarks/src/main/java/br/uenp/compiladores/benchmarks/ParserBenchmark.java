@@ -0,0 +1,64 @@
+package br.uenp.compiladores.benchmarks;
+
+import br.uenp.compiladores.CSubsetLexer;
+import br.uenp.compiladores.CSubsetParser;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSubsetParser.program sobre tokens já produzidos, para não medir o lexer.
+ * O modo LL é o do ANTLR por omissão; SLL é a primeira fase do SourceParser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"fib", "loops", "arrays", "structs", "printf"})
+    public String workload;
+
+    @Param({"LL", "SLL"})
+    public String mode;
+
+    private List<? extends Token> tokens;
+
+    @Setup
+    public void setup() {
+        CommonTokenStream stream = new CommonTokenStream(new CSubsetLexer(CharStreams.fromString(Workloads.source(workload))));
+        stream.fill();
+        tokens = stream.getTokens();
+    }
+
+    @Benchmark
+    public ParseTree parse() {
+        CSubsetParser parser = new CSubsetParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.removeErrorListeners();
+        if (mode.equals("SLL")) {
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            parser.setErrorHandler(new BailErrorStrategy());
+        }
+        return parser.program();
+    }
+}
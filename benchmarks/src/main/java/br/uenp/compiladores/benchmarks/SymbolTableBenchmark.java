@@ -0,0 +1,67 @@
+package br.uenp.compiladores.benchmarks;
+
+import br.uenp.compiladores.CType;
+import br.uenp.compiladores.Symbol;
+import br.uenp.compiladores.SymbolTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Declaração (atribuição de slot) e resolução de nomes na SymbolTable com
+ * escopos aninhados, como o Resolver faz num corpo de função com blocos.
+ * Cada nível declara VARS_PER_SCOPE variáveis; no nível mais interno são
+ * resolvidas todas as variáveis visíveis, das mais próximas às mais externas.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolTableBenchmark {
+
+    private static final int VARS_PER_SCOPE = 4;
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    private final SymbolTable table = new SymbolTable();
+    private String[][] names;
+
+    @Setup
+    public void setup() {
+        names = new String[depth][VARS_PER_SCOPE];
+        for (int d = 0; d < depth; d++) {
+            for (int v = 0; v < VARS_PER_SCOPE; v++) names[d][v] = "v" + d + "_" + v;
+        }
+    }
+
+    @Benchmark
+    public void declareAndResolve(Blackhole bh) {
+        table.beginFunction();
+        for (int d = 0; d < depth; d++) {
+            if (d > 0) table.enterScope();
+            for (String name : names[d]) bh.consume(table.add(name, CType.INT));
+        }
+        for (int d = depth - 1; d >= 0; d--) {
+            for (String name : names[d]) {
+                Symbol symbol = table.lookup(name);
+                bh.consume(symbol);
+            }
+        }
+        for (int d = 1; d < depth; d++) table.exitScope();
+        bh.consume(table.getFrameSize());
+    }
+}
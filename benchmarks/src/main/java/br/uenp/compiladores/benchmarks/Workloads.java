@@ -0,0 +1,26 @@
+package br.uenp.compiladores.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Programas C usados como carga nos benchmarks (src/main/resources/workloads).
+ * Os nomes são os valores aceites pelos @Param "workload".
+ */
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    static String source(String name) {
+        String resource = "/workloads/" + name + ".c";
+        try (InputStream in = Workloads.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalArgumentException("carga desconhecida: " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+#include <stdio.h>
+
+int main() {
+    int v[1000];
+    float w[1000];
+    int soma = 0;
+    float media = 0.0;
+    for (int k = 0; k < 20; k = k + 1) {
+        for (int i = 0; i < 1000; i = i + 1) {
+            v[i] = i * k;
+            w[i] = i * 0.5;
+        }
+        for (int i = 0; i < 1000; i = i + 1) {
+            soma = soma + v[i];
+            media = media + w[i];
+        }
+    }
+    printf("%d %f\n", soma, media / 20000.0);
+    return 0;
+}
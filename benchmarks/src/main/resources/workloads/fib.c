@@ -0,0 +1,13 @@
+#include <stdio.h>
+
+int fib(int n) {
+    if (n <= 1) {
+        return n;
+    }
+    return fib(n - 1) + fib(n - 2);
+}
+
+int main() {
+    printf("%d\n", fib(20));
+    return 0;
+}
@@ -0,0 +1,17 @@
+#include <stdio.h>
+#define N 200
+
+int main() {
+    int total = 0;
+    for (int i = 0; i < N; i = i + 1) {
+        for (int j = 0; j < N; j = j + 1) {
+            if (i < j) {
+                total = total + i * j;
+            } else {
+                total = total - j;
+            }
+        }
+    }
+    printf("%d\n", total);
+    return 0;
+}
@@ -0,0 +1,12 @@
+#include <stdio.h>
+
+int main() {
+    char nome[20];
+    nome[0] = 'c';
+    nome[1] = 0;
+    for (int i = 0; i < 5000; i = i + 1) {
+        printf("linha %d: %s valor=%f letra=%c\n", i, nome, i * 0.25, 'x');
+    }
+    puts("fim");
+    return 0;
+}
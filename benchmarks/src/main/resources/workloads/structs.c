@@ -0,0 +1,26 @@
+#include <stdio.h>
+
+struct Ponto {
+    int x;
+    int y;
+    float peso;
+};
+
+int main() {
+    struct Ponto p;
+    struct Ponto q;
+    p.x = 0;
+    p.y = 0;
+    p.peso = 1.0;
+    q.x = 1;
+    q.y = 2;
+    q.peso = 0.5;
+    for (int i = 0; i < 20000; i = i + 1) {
+        p.x = p.x + q.x;
+        p.y = p.y + q.y * 2;
+        p.peso = p.peso + q.peso;
+        q.x = q.y - q.x;
+    }
+    printf("%d %d %f\n", p.x, p.y, p.peso);
+    return 0;
+}
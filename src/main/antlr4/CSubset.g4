@@ -12,7 +12,7 @@ functionDeclaration:
 paramList:
     param (COMMA param)*
     ;
-param:
+param locals [Symbol symbol]:
     type ID
     ;
 
@@ -31,8 +31,8 @@ structDefinition:
 structMember:
     type ID SEMI
     ;
-memberAccess:
-    ID DOT ID
+memberAccess locals [Symbol symbol]:
+    ID (DOT | ARROW) ID
     ;
 
 statement:
@@ -66,12 +66,12 @@ ifStatement:
 printfStatement:
     PRINTF LPAREN STRING_LITERAL (COMMA argList)? RPAREN SEMI
     ;
-scanfStatement:
+scanfStatement locals [Symbol symbol]:
     SCANF LPAREN STRING_LITERAL COMMA AMPERSAND ID RPAREN SEMI
     ;
 
 // Nova regra para 'gets'
-getsStatement:
+getsStatement locals [Symbol symbol]:
     GETS LPAREN ID RPAREN SEMI
     ;
 
@@ -105,14 +105,14 @@ forInit:
     ;
 block: LBRACE statement* RBRACE;
 declaration: simpleDeclaration SEMI;
-simpleDeclaration:
+simpleDeclaration locals [Symbol symbol]:
     type ID ( (LBRACKET INT RBRACKET) | (ASSIGN expression) )?
     ;
 assignment: simpleAssignment SEMI;
 simpleAssignment:
     lvalue ASSIGN expression
     ;
-lvalue:
+lvalue locals [Symbol symbol]:
     ID
     | arrayAccess
     | memberAccess
@@ -149,20 +149,22 @@ unaryExpr:
     ;
 // --- FIM ---
 
-primaryExpr:
+primaryExpr locals [Symbol symbol]:
       INT
     | FLOAT
     | CHAR_LITERAL
+    | STRING_LITERAL
     | ID
     | functionCall
     | arrayAccess
     | memberAccess
+    | SIZEOF LPAREN type RPAREN
     | LPAREN expression RPAREN
     ;
 functionCall:
     ID LPAREN argList? RPAREN
     ;
-arrayAccess:
+arrayAccess locals [Symbol symbol]:
     ID LBRACKET expression RBRACKET
     ;
 argList:
@@ -171,8 +173,8 @@ argList:
 
 type:
     (T_INT | T_FLOAT | T_CHAR | T_VOID) (STAR)?
-    | structType
-    | unionType
+    | structType (STAR)?
+    | unionType (STAR)?
     ;
 structType:
     STRUCT ID
@@ -230,6 +232,8 @@ COLON: ':';
 HASH: '#';
 DEFINE: 'define';
 INCLUDE: 'include';
+SIZEOF: 'sizeof';
+ARROW: '->';
 
 ID: [a-zA-Z_] [a-zA-Z_0-9]*;
 INT: [0-9]+;
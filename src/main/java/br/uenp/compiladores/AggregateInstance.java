@@ -0,0 +1,35 @@
+package br.uenp.compiladores;
+
+/**
+ * Memória de uma struct ou union: um array compacto com um slot por
+ * deslocamento calculado no StructDefinition. Os acessos chegam já com o
+ * deslocamento resolvido no rebaixamento, sem procurar o membro por nome.
+ */
+public abstract class AggregateInstance {
+    protected final StructDefinition definition;
+    protected final Object[] values;
+
+    protected AggregateInstance(StructDefinition definition) {
+        this.definition = definition;
+        this.values = new Object[definition.getSize()];
+    }
+
+    public StructDefinition getDefinition() {
+        return definition;
+    }
+
+    public void write(int offset, Object value) {
+        values[offset] = value;
+    }
+
+    public Object read(int offset, String memberName) {
+        Object value = values[offset];
+        if (value == null) {
+            throw new RuntimeException("Erro: Lendo membro de " + kind() + " ('" + memberName + "') não inicializado.");
+        }
+        return value;
+    }
+
+    // "struct" ou "union", para as mensagens de erro
+    protected abstract String kind();
+}
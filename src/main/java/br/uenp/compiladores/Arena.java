@@ -0,0 +1,229 @@
+package br.uenp.compiladores;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+
+/**
+ * Memória do malloc/calloc/free (#include <stdlib.h>): um único bloco fora
+ * do heap Java (ByteBuffer.allocateDirect), com -Dcsubset.heap.size bytes
+ * (por omissão 64 MiB) reservados na primeira alocação. Os dados lá
+ * guardados não são objetos, pelo que não pesam no GC, e o programa não
+ * pode usar mais memória do que a configurada: quando não há espaço o
+ * malloc devolve NULL, como em C.
+ *
+ * Cada bloco tem um cabeçalho de 8 bytes (classe de tamanho e estado) e um
+ * tamanho útil potência de 2 (de 8 bytes a 1 GiB). Os blocos libertados
+ * ficam numa lista por classe, ligada pelos primeiros 4 bytes do próprio
+ * bloco, e são reutilizados pela próxima alocação dessa classe. O endereço 0
+ * nunca é devolvido: representa o NULL.
+ *
+ * Cada ponteiro lembra o bloco de onde veio (na memória, guardado nos 32
+ * bits altos do endereço), e cada leitura ou escrita tem de cair dentro
+ * desse bloco enquanto ele está alocado: um acesso fora dele estragaria o
+ * cabeçalho do bloco seguinte e as listas de blocos livres.
+ *
+ * Os tamanhos e alinhamentos seguem os de um compilador C de 64 bits, com
+ * float em 8 bytes (é um double Java): char 1, int 4, float 8, ponteiro 8.
+ */
+public class Arena {
+
+    public static final int DEFAULT_SIZE = 64 << 20;
+
+    private static final int HEADER = 8;
+    private static final int MIN_BLOCK = 8;
+    private static final int CLASSES = 28; // Até MIN_BLOCK << 27 = 1 GiB
+    private static final int ALLOCATED = 0x4D41; // Estado no cabeçalho, para detetar free inválido ou repetido
+    private static final int FREE = 0x4652;
+    private static final byte[] ZEROS = new byte[4096];
+
+    private final ByteBuffer memory;
+    private final int[] freeLists = new int[CLASSES]; // Primeiro bloco livre de cada classe (0: nenhum)
+    private int top = HEADER; // Os primeiros bytes ficam por usar: nenhum bloco começa no endereço 0
+
+    public Arena(int size) {
+        this.memory = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    /** Arena com o tamanho de -Dcsubset.heap.size (bytes). */
+    public static Arena fromSystemProperties() {
+        return new Arena(Integer.getInteger("csubset.heap.size", DEFAULT_SIZE));
+    }
+
+    // ============================================================
+    //               ALOCAÇÃO
+    // ============================================================
+
+    /** Endereço de um bloco com pelo menos 'bytes' bytes, ou 0 se não houver espaço. */
+    public int allocate(long bytes) {
+        int sizeClass = bytes < 0 ? -1 : sizeClass(Math.max(bytes, 1)); // Negativo: um size_t enorme em C
+        if (sizeClass < 0) return 0;
+        int address = freeLists[sizeClass];
+        if (address != 0) {
+            freeLists[sizeClass] = memory.getInt(address);
+        } else {
+            long end = (long) top + HEADER + blockSize(sizeClass);
+            if (end > memory.capacity()) return 0;
+            address = top + HEADER;
+            top = (int) end;
+            memory.putInt(address - HEADER, sizeClass);
+        }
+        memory.putInt(address - 4, ALLOCATED);
+        return address;
+    }
+
+    /** Como o allocate, com o bloco a zeros (calloc). */
+    public int allocateZeroed(long bytes) {
+        int address = allocate(bytes);
+        if (address == 0) return 0;
+        for (int i = 0; i < bytes; i += ZEROS.length) {
+            memory.put(address + i, ZEROS, 0, (int) Math.min(ZEROS.length, bytes - i));
+        }
+        return address;
+    }
+
+    /** free(p): p tem de ser NULL ou um ponteiro devolvido por esta Arena. */
+    public void free(Object pointer) {
+        if (pointer == Reference.NULL) return;
+        if (!(pointer instanceof Reference.Heap)) throw invalidFree();
+        Reference.Heap heap = (Reference.Heap) pointer;
+        if (heap.arena != this || heap.address != heap.block) throw invalidFree();
+        free(heap.address);
+    }
+
+    private void free(int address) {
+        if (address < 2 * HEADER || address >= top || memory.getInt(address - 4) != ALLOCATED) {
+            throw invalidFree();
+        }
+        int sizeClass = memory.getInt(address - HEADER);
+        memory.putInt(address - 4, FREE);
+        memory.putInt(address, freeLists[sizeClass]);
+        freeLists[sizeClass] = address;
+    }
+
+    private static RuntimeException invalidFree() {
+        return new RuntimeException("Erro: free de um ponteiro que não foi devolvido pelo malloc ou já foi libertado.");
+    }
+
+    private static int sizeClass(long bytes) {
+        for (int c = 0; c < CLASSES; c++) {
+            if (blockSize(c) >= bytes) return c;
+        }
+        return -1;
+    }
+
+    private static int blockSize(int sizeClass) {
+        return MIN_BLOCK << sizeClass;
+    }
+
+    // ============================================================
+    //               LEITURA E ESCRITA
+    // ============================================================
+
+    // Os valores chegam já convertidos para o tipo (Integer, Double, Character ou Reference)
+
+    Object load(int block, int address, CType type) {
+        checkAccess(block, address, type);
+        switch (type.getKind()) {
+            case INT: return memory.getInt(address);
+            case FLOAT: return memory.getDouble(address);
+            case CHAR: return (char) (memory.get(address) & 0xFF);
+            case POINTER: {
+                long target = memory.getLong(address);
+                return target == 0 ? Reference.NULL : new Reference.Heap(this, (int) (target >>> 32), (int) target);
+            }
+            default: throw unsupported(type);
+        }
+    }
+
+    void store(int block, int address, CType type, Object value) {
+        checkAccess(block, address, type);
+        switch (type.getKind()) {
+            case INT: memory.putInt(address, (Integer) value); break;
+            case FLOAT: memory.putDouble(address, (Double) value); break;
+            case CHAR: memory.put(address, (byte) (char) (Character) value); break;
+            case POINTER: memory.putLong(address, addressOf(value)); break;
+            default: throw unsupported(type);
+        }
+    }
+
+    // Só endereços desta memória podem ser guardados nela: os das variáveis não existem fora do interpretador
+    private long addressOf(Object pointer) {
+        if (pointer == Reference.NULL) return 0;
+        if (pointer instanceof Reference.Heap && ((Reference.Heap) pointer).arena == this) {
+            Reference.Heap heap = (Reference.Heap) pointer;
+            return (long) heap.block << 32 | (heap.address & 0xFFFFFFFFL);
+        }
+        throw new RuntimeException("Erro: Só ponteiros devolvidos pelo malloc podem ser guardados na memória do malloc.");
+    }
+
+    // O bloco ainda tem de estar alocado e o valor inteiro tem de caber nele
+    private void checkAccess(int block, int address, CType type) {
+        if (!type.isArithmetic() && !type.isPointer()) throw unsupported(type);
+        if (block < 2 * HEADER || block >= top || memory.getInt(block - 4) != ALLOCATED) {
+            throw new RuntimeException("Erro: Acesso à memória do malloc depois do free.");
+        }
+        long end = (long) address + sizeOf(type);
+        if (address < block || end > block + blockSize(memory.getInt(block - HEADER))) {
+            throw new RuntimeException("Erro: Acesso fora da memória do malloc.");
+        }
+    }
+
+    private static RuntimeException unsupported(CType type) {
+        return new RuntimeException("Erro: Acesso a '" + type + "' inteiro na memória do malloc não suportado (use '->' para os membros).");
+    }
+
+    // ============================================================
+    //               TAMANHOS E DESLOCAMENTOS
+    // ============================================================
+
+    /** sizeof(type). */
+    public static int sizeOf(CType type) {
+        switch (type.getKind()) {
+            case CHAR: return 1;
+            case INT: return 4;
+            case FLOAT:
+            case POINTER: return 8;
+            case ARRAY: return type.getLength() * sizeOf(type.getElement());
+            case STRUCT:
+            case UNION: {
+                StructDefinition definition = type.getDefinition();
+                int size = 0;
+                for (CType member : definition.getMembers().values()) {
+                    size = definition.isUnion() ? Math.max(size, sizeOf(member)) : align(size, alignOf(member)) + sizeOf(member);
+                }
+                return align(size, alignOf(type));
+            }
+            default: throw new RuntimeException("Erro: sizeof de '" + type + "' não é válido.");
+        }
+    }
+
+    private static int alignOf(CType type) {
+        switch (type.getKind()) {
+            case ARRAY: return alignOf(type.getElement());
+            case STRUCT:
+            case UNION: {
+                int align = 1;
+                for (CType member : type.getDefinition().getMembers().values()) align = Math.max(align, alignOf(member));
+                return align;
+            }
+            default: return sizeOf(type);
+        }
+    }
+
+    /** Deslocamento em bytes do membro dentro da struct (0 numa union). */
+    public static int offsetOf(StructDefinition definition, String member) {
+        if (definition.isUnion()) return 0;
+        int offset = 0;
+        for (Map.Entry<String, CType> entry : definition.getMembers().entrySet()) {
+            offset = align(offset, alignOf(entry.getValue()));
+            if (entry.getKey().equals(member)) return offset;
+            offset += sizeOf(entry.getValue());
+        }
+        throw new IllegalArgumentException(member);
+    }
+
+    private static int align(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+}
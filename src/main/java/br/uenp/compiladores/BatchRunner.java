@@ -0,0 +1,130 @@
+package br.uenp.compiladores;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Modo --batch: compila e executa vários programas em paralelo na mesma JVM.
+ *
+ * Cada programa tem o seu próprio MyVisitor (e portanto a sua SymbolTable) e o
+ * seu ExecutionContext: a entrada padrão vem de 'nome.in', ao lado do fonte,
+ * se existir, e a saída padrão e a de erros ficam em 'nome.out' e 'nome.err'
+ * no diretório de saída. As caches DFA do lexer e do parser são estáticas nas
+ * classes geradas pelo ANTLR, pelo que são partilhadas por todas as análises;
+ * a cache de programas em disco também.
+ */
+public class BatchRunner {
+
+    private final Path outputDirectory;
+    private final int threads;
+
+    public BatchRunner(Path outputDirectory, int threads) {
+        this.outputDirectory = outputDirectory;
+        this.threads = threads;
+    }
+
+    /** Resultado da execução de um programa. */
+    public static final class Result {
+        public final Path source;
+        public final boolean ok;
+        public final long nanos;
+
+        Result(Path source, boolean ok, long nanos) {
+            this.source = source;
+            this.ok = ok;
+            this.nanos = nanos;
+        }
+    }
+
+    /** Expande diretórios nos seus ficheiros .c (por ordem alfabética). */
+    public static List<Path> sources(List<String> arguments) throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (String argument : arguments) {
+            Path path = Path.of(argument);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    files.filter(f -> f.toString().endsWith(".c") && Files.isRegularFile(f))
+                         .sorted()
+                         .forEach(sources::add);
+                }
+            } else {
+                sources.add(path);
+            }
+        }
+        return sources;
+    }
+
+    public List<Result> run(List<Path> sources) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> pending = new ArrayList<>();
+            for (Path source : sources) {
+                pending.add(pool.submit(() -> runOne(source)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> f : pending) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    // Só falhas de escrita dos resultados chegam aqui
+                    throw new IOException(e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Result runOne(Path source) throws IOException {
+        String name = baseName(source);
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(outBytes);
+        PrintStream err = new PrintStream(errBytes);
+
+        long start = System.nanoTime();
+        boolean ok;
+        Path inputFile = source.resolveSibling(name + ".in");
+        try (InputStream in = Files.isRegularFile(inputFile)
+                ? Files.newInputStream(inputFile)
+                : new ByteArrayInputStream(new byte[0])) {
+            Program program = Main.compile(Files.readAllBytes(source), source.toString(), out, err);
+            program.run(new ExecutionContext(in, out, err));
+            ok = true;
+        } catch (IOException e) {
+            err.println("Erro ao ler o arquivo: " + e.getMessage());
+            ok = false;
+        } catch (Exception | StackOverflowError e) {
+            // As mesmas mensagens que o Main, mas no .err do programa em vez de terminar a JVM
+            err.println("Erro durante a análise: " + e.getMessage());
+            ok = false;
+        }
+        long nanos = System.nanoTime() - start;
+
+        out.flush();
+        err.flush();
+        Files.write(outputDirectory.resolve(name + ".out"), outBytes.toByteArray());
+        Files.write(outputDirectory.resolve(name + ".err"), errBytes.toByteArray());
+        return new Result(source, ok, nanos);
+    }
+
+    private static String baseName(Path source) {
+        String file = source.getFileName().toString();
+        int dot = file.lastIndexOf('.');
+        return dot > 0 ? file.substring(0, dot) : file;
+    }
+}
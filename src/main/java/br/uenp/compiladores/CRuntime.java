@@ -0,0 +1,188 @@
+package br.uenp.compiladores;
+
+
+/**
+ * Biblioteca de suporte dos programas compilados para bytecode JVM (modo
+ * --compile). Não depende do ANTLR nem do interpretador: é copiada para
+ * dentro do .jar gerado. A formatação do printf é partilhada com o
+ * interpretador (PrintfFormat, OutputSink e InputReader, também copiados para o .jar),
+ * para que ambos produzam exatamente a mesma saída.
+ */
+public final class CRuntime {
+
+    private static final InputReader input = InputReader.of(System.in);
+    private static final OutputSink out = new OutputSink(System.out);
+
+    private CRuntime() { }
+
+    // ============================================================
+    //               PONTEIROS
+    // ============================================================
+
+    public abstract static class IntRef {
+        public abstract int get();
+        public abstract void set(int value);
+    }
+
+    public abstract static class DoubleRef {
+        public abstract double get();
+        public abstract void set(double value);
+    }
+
+    public abstract static class CharRef {
+        public abstract char get();
+        public abstract void set(char value);
+    }
+
+    /** Ponteiro para uma variável local cujo endereço é tomado (guardada num int[1]). */
+    public static final class IntCell extends IntRef {
+        private final int[] cell;
+        public IntCell(int[] cell) { this.cell = cell; }
+        @Override public int get() { return cell[0]; }
+        @Override public void set(int value) { cell[0] = value; }
+    }
+
+    public static final class DoubleCell extends DoubleRef {
+        private final double[] cell;
+        public DoubleCell(double[] cell) { this.cell = cell; }
+        @Override public double get() { return cell[0]; }
+        @Override public void set(double value) { cell[0] = value; }
+    }
+
+    public static final class CharCell extends CharRef {
+        private final char[] cell;
+        public CharCell(char[] cell) { this.cell = cell; }
+        @Override public char get() { return cell[0]; }
+        @Override public void set(char value) { cell[0] = value; }
+    }
+
+    /** Ponteiro para um elemento de array ('&v[i]'). */
+    public static final class IntElement extends IntRef {
+        private final int[] array;
+        private final int index;
+        public IntElement(int[] array, int index) { this.array = array; this.index = index; }
+        @Override public int get() { return array[index]; }
+        @Override public void set(int value) { array[index] = value; }
+    }
+
+    public static final class DoubleElement extends DoubleRef {
+        private final double[] array;
+        private final int index;
+        public DoubleElement(double[] array, int index) { this.array = array; this.index = index; }
+        @Override public double get() { return array[index]; }
+        @Override public void set(double value) { array[index] = value; }
+    }
+
+    public static final class CharElement extends CharRef {
+        private final char[] array;
+        private final int index;
+        public CharElement(char[] array, int index) { this.array = array; this.index = index; }
+        @Override public char get() { return array[index]; }
+        @Override public void set(char value) { array[index] = value; }
+    }
+
+    // ============================================================
+    //               ENTRADA E SAÍDA
+    // ============================================================
+
+    public static void printf(PrintfFormat format, Object... values) {
+        out.printf(format, values);
+    }
+
+    public static void puts(String text) {
+        out.println(text);
+    }
+
+    /** Copia o texto para o array de char, terminando com '\0' se couber (gets). */
+    public static void copyString(String text, char[] array) {
+        int n = Math.min(text.length(), array.length);
+        text.getChars(0, n, array, 0);
+        if (text.length() < array.length) {
+            array[text.length()] = '\0';
+        }
+    }
+
+    // Leituras bloqueantes: a saída pendente é despejada antes (prompts)
+    public static int scanInt() { out.flush(); return input.nextInt(); }
+    public static double scanDouble() { out.flush(); return input.nextDouble(); }
+    public static char scanChar() { out.flush(); return input.nextChar(); }
+
+    public static void gets(char[] array) {
+        try {
+            out.flush();
+            copyString(input.next(), array);
+        } catch (RuntimeException e) {
+            error(e);
+        }
+    }
+
+    // Erros que o interpretador apenas reporta, continuando a execução
+    public static void error(RuntimeException e) {
+        error(e.getMessage());
+    }
+
+    public static void error(String message) {
+        out.flush();
+        System.err.println(message);
+    }
+
+    // ============================================================
+    //               OPERAÇÕES
+    // ============================================================
+
+    public static int div(int a, int b) {
+        if (b == 0) throw new RuntimeException("Erro: Divisão por zero.");
+        return a / b;
+    }
+
+    public static double div(double a, double b) {
+        if (b == 0.0) throw new RuntimeException("Erro: Divisão por zero.");
+        return a / b;
+    }
+
+    /** Impede que o javac trate condições constantes como laços infinitos (código inalcançável). */
+    public static boolean cond(boolean value) {
+        return value;
+    }
+
+    public static RuntimeException missingReturn(String function) {
+        return new RuntimeException("Erro: Função não-void '" + function + "' chegou ao fim sem 'return'.");
+    }
+
+    // Leitura de membros de union: todos os membros partilham o mesmo valor
+    public static int asInt(Object value, String member) {
+        if (value instanceof Character) return (Character) value;
+        return ((Number) checkUnion(value, member)).intValue();
+    }
+
+    public static double asDouble(Object value, String member) {
+        if (value instanceof Character) return (Character) value;
+        return ((Number) checkUnion(value, member)).doubleValue();
+    }
+
+    public static char asChar(Object value, String member) {
+        if (value instanceof Number) return (char) ((Number) value).intValue();
+        return (Character) checkUnion(value, member);
+    }
+
+    private static Object checkUnion(Object value, String member) {
+        if (value == null) {
+            throw new RuntimeException("Erro: Lendo membro de union ('" + member + "') não inicializado.");
+        }
+        return value;
+    }
+
+    // ============================================================
+    //               PONTO DE ENTRADA
+    // ============================================================
+
+    public static void run(Runnable main) {
+        try {
+            main.run();
+        } catch (RuntimeException e) {
+            error("Erro durante a execução: " + e.getMessage());
+            System.exit(1);
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,130 @@
+package br.uenp.compiladores;
+
+import java.util.Arrays;
+
+/**
+ * Funções de <string.h> sobre os arrays Java que guardam os arrays C
+ * (char[], int[] e double[]), com operações em bloco (System.arraycopy,
+ * Arrays.fill, Arrays.mismatch) em vez de um laço interpretado por
+ * caráter. São usadas pelo interpretador (Expressions.Intrinsic) e pelos
+ * programas compilados (copiadas para o .jar, como o CRuntime).
+ *
+ * Uma string termina no primeiro '\0' ou no fim do array. Os tamanhos do
+ * memset/memcpy são em bytes, com char, int e float de 1, 4 e 8 bytes.
+ * Escrever para além do destino é um erro fatal, em vez de corromper a memória.
+ */
+public final class CStrings {
+
+    private CStrings() { }
+
+    /** "texto" como array C: uma cópia nova, terminada em '\0'. */
+    public static char[] literal(String text) {
+        char[] array = new char[text.length() + 1];
+        text.getChars(0, text.length(), array, 0);
+        return array;
+    }
+
+    public static int strlen(char[] s) {
+        for (int i = 0; i < s.length; i++) {
+            if (s[i] == '\0') return i;
+        }
+        return s.length;
+    }
+
+    public static char[] strcpy(char[] dst, char[] src) {
+        int n = strlen(src);
+        requireRoom("strcpy", dst, n + 1);
+        System.arraycopy(src, 0, dst, 0, n);
+        dst[n] = '\0';
+        return dst;
+    }
+
+    public static char[] strcat(char[] dst, char[] src) {
+        int start = strlen(dst);
+        int n = strlen(src);
+        requireRoom("strcat", dst, start + n + 1);
+        System.arraycopy(src, 0, dst, start, n);
+        dst[start + n] = '\0';
+        return dst;
+    }
+
+    public static int strcmp(char[] a, char[] b) {
+        int la = strlen(a), lb = strlen(b);
+        int i = Arrays.mismatch(a, 0, la, b, 0, lb);
+        if (i < 0) return 0;
+        return (i < la ? a[i] : 0) - (i < lb ? b[i] : 0);
+    }
+
+    // ============================================================
+    //               MEMÓRIA
+    // ============================================================
+
+    public static char[] memset(char[] dst, int value, int bytes) {
+        Arrays.fill(dst, 0, elements("memset", dst.length, bytes, 1), (char) (value & 0xFF));
+        return dst;
+    }
+
+    public static int[] memset(int[] dst, int value, int bytes) {
+        Arrays.fill(dst, 0, elements("memset", dst.length, bytes, 4), (value & 0xFF) * 0x01010101);
+        return dst;
+    }
+
+    public static double[] memset(double[] dst, int value, int bytes) {
+        double filled = Double.longBitsToDouble((value & 0xFFL) * 0x0101010101010101L);
+        Arrays.fill(dst, 0, elements("memset", dst.length, bytes, 8), filled);
+        return dst;
+    }
+
+    public static char[] memcpy(char[] dst, char[] src, int bytes) {
+        int n = elements("memcpy", Math.min(dst.length, src.length), bytes, 1);
+        System.arraycopy(src, 0, dst, 0, n);
+        return dst;
+    }
+
+    public static int[] memcpy(int[] dst, int[] src, int bytes) {
+        int n = elements("memcpy", Math.min(dst.length, src.length), bytes, 4);
+        System.arraycopy(src, 0, dst, 0, n);
+        return dst;
+    }
+
+    public static double[] memcpy(double[] dst, double[] src, int bytes) {
+        int n = elements("memcpy", Math.min(dst.length, src.length), bytes, 8);
+        System.arraycopy(src, 0, dst, 0, n);
+        return dst;
+    }
+
+    // Versões para o interpretador, onde o tipo do array só é conhecido em execução
+    public static Object memset(Object dst, int value, int bytes) {
+        if (dst instanceof char[]) return memset((char[]) dst, value, bytes);
+        if (dst instanceof int[]) return memset((int[]) dst, value, bytes);
+        return memset((double[]) dst, value, bytes);
+    }
+
+    public static Object memcpy(Object dst, Object src, int bytes) {
+        if (dst instanceof char[]) return memcpy((char[]) dst, (char[]) src, bytes);
+        if (dst instanceof int[]) return memcpy((int[]) dst, (int[]) src, bytes);
+        return memcpy((double[]) dst, (double[]) src, bytes);
+    }
+
+    // ============================================================
+    //               LIMITES
+    // ============================================================
+
+    private static void requireRoom(String function, char[] dst, int needed) {
+        if (needed > dst.length) {
+            throw new RuntimeException("Erro: " + function + ": o destino tem " + dst.length
+                    + " posições, mas são necessárias " + needed + ".");
+        }
+    }
+
+    // Número de elementos abrangidos por 'bytes', que tem de ser múltiplo do tamanho e caber no array
+    private static int elements(String function, int length, int bytes, int size) {
+        if (bytes < 0 || bytes % size != 0) {
+            throw new RuntimeException("Erro: " + function + ": " + bytes + " bytes não é múltiplo do tamanho do elemento (" + size + ").");
+        }
+        if (bytes / size > length) {
+            throw new RuntimeException("Erro: " + function + ": " + bytes + " bytes excedem o array de " + length + " elementos.");
+        }
+        return bytes / size;
+    }
+}
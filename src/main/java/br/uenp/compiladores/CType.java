@@ -0,0 +1,92 @@
+package br.uenp.compiladores;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Tipo C já decodificado. Substitui as strings de tipo (ex.: "int*",
+ * "structAluno") que antes eram obtidas com getText() a cada execução.
+ */
+public final class CType implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind { INT, FLOAT, CHAR, VOID, POINTER, ARRAY, STRUCT, UNION }
+
+    public static final CType INT = new CType(Kind.INT, "int", null, null, 0);
+    public static final CType FLOAT = new CType(Kind.FLOAT, "float", null, null, 0);
+    public static final CType CHAR = new CType(Kind.CHAR, "char", null, null, 0);
+    public static final CType VOID = new CType(Kind.VOID, "void", null, null, 0);
+
+    private final Kind kind;
+    private final String name;
+    private final CType element; // Tipo apontado (ponteiro) ou dos elementos (array)
+    private final StructDefinition definition; // Apenas para struct/union
+    private final int length; // Apenas para arrays
+
+    private CType(Kind kind, String name, CType element, StructDefinition definition, int length) {
+        this.kind = kind;
+        this.name = name;
+        this.element = element;
+        this.definition = definition;
+        this.length = length;
+    }
+
+    public static CType pointerTo(CType element) {
+        return new CType(Kind.POINTER, element.name + "*", element, null, 0);
+    }
+
+    public static CType arrayOf(CType element, int length) {
+        return new CType(Kind.ARRAY, element.name + "[" + length + "]", element, null, length);
+    }
+
+    public static CType struct(String name, StructDefinition definition) {
+        return new CType(Kind.STRUCT, "struct " + name, null, definition, 0);
+    }
+
+    public static CType union(String name, StructDefinition definition) {
+        return new CType(Kind.UNION, "union " + name, null, definition, 0);
+    }
+
+    // Os tipos primitivos são comparados com '==': ao ler da cache voltam a ser os singletons
+    private Object readResolve() {
+        switch (kind) {
+            case INT: return INT;
+            case FLOAT: return FLOAT;
+            case CHAR: return CHAR;
+            case VOID: return VOID;
+            default: return this;
+        }
+    }
+
+    public Kind getKind() { return kind; }
+    public CType getElement() { return element; }
+    public StructDefinition getDefinition() { return definition; }
+    public int getLength() { return length; }
+
+    public boolean isVoid() { return kind == Kind.VOID; }
+    public boolean isPointer() { return kind == Kind.POINTER; }
+    public boolean isArray() { return kind == Kind.ARRAY; }
+    public boolean isStruct() { return kind == Kind.STRUCT; }
+    public boolean isUnion() { return kind == Kind.UNION; }
+    public boolean isAggregate() { return kind == Kind.STRUCT || kind == Kind.UNION; }
+    public boolean isArithmetic() { return kind == Kind.INT || kind == Kind.FLOAT || kind == Kind.CHAR; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CType)) return false;
+        CType other = (CType) o;
+        return kind == other.kind && length == other.length && definition == other.definition
+                && Objects.equals(element, other.element);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, element, length);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,171 @@
+package br.uenp.compiladores;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Eventos do Java Flight Recorder emitidos pelo interpretador, para
+ * correlacionar a execução dos programas C com os dados de GC e alocação no
+ * JDK Mission Control. Estão todos desativados por omissão: são ligados numa
+ * gravação com as definições de 'csubset.jfc' (ou equivalentes).
+ *
+ * Carregar uma classe de evento custa centenas de milissegundos mesmo sem
+ * gravação, pelo que os nós não as referem diretamente: passam pelos métodos
+ * abaixo, que só criam eventos depois de o JFR ter sido iniciado (na linha de
+ * comando ou mais tarde, com jcmd). Até lá cada ponto custa uma leitura de campo.
+ */
+public final class Events {
+
+    private Events() { }
+
+    static final String CATEGORY = "C Subset";
+
+    static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    // ============================================================
+    //               EMISSÃO
+    // ============================================================
+
+    // Os begin*() devolvem null fora de uma gravação; o end() vem antes do shouldCommit() para respeitar o limiar
+
+    static Parse beginParse() {
+        if (!recording()) return null;
+        Parse event = new Parse();
+        event.begin();
+        return event;
+    }
+
+    static void endParse(Parse event, String source, int tokens, boolean fallbackToLL) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.tokens = tokens;
+            event.fallbackToLL = fallbackToLL;
+            event.commit();
+        }
+    }
+
+    static Lower beginLower() {
+        if (!recording()) return null;
+        Lower event = new Lower();
+        event.begin();
+        return event;
+    }
+
+    static void endLower(Lower event, String source, int functions) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.functions = functions;
+            event.commit();
+        }
+    }
+
+    static Io beginIo() {
+        if (!recording()) return null;
+        Io event = new Io();
+        event.begin();
+        return event;
+    }
+
+    static void endIo(Io event, String operation) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.commit();
+        }
+    }
+
+    static void runtimeError(String message, boolean fatal) {
+        if (!recording()) return;
+        RuntimeError event = new RuntimeError();
+        if (event.shouldCommit()) {
+            event.message = message;
+            event.fatal = fatal;
+            event.commit();
+        }
+    }
+
+    // ============================================================
+    //               EVENTOS
+    // ============================================================
+
+    @Name("br.uenp.compiladores.Parse")
+    @Label("Análise sintática")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Parse extends Event {
+        @Label("Fonte")
+        String source;
+
+        @Label("Tokens")
+        int tokens;
+
+        @Label("Recurso a LL")
+        @Description("A predição SLL falhou e o texto foi analisado de novo com LL completo")
+        boolean fallbackToLL;
+    }
+
+    @Name("br.uenp.compiladores.Lower")
+    @Label("Rebaixamento")
+    @Description("Rebaixamento, verificação de tipos e análise de pureza")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Lower extends Event {
+        @Label("Fonte")
+        String source;
+
+        @Label("Funções")
+        int functions;
+    }
+
+    @Name("br.uenp.compiladores.FunctionCall")
+    @Label("Chamada de função")
+    @Description("Chamada de uma função C no interpretador recursivo, da entrada ao retorno")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static final class FunctionCall extends Event {
+        @Label("Função")
+        String function;
+    }
+
+    @Name("br.uenp.compiladores.Io")
+    @Label("Entrada/saída")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class Io extends Event {
+        @Label("Operação")
+        String operation;
+    }
+
+    @Name("br.uenp.compiladores.RuntimeError")
+    @Label("Erro em execução")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class RuntimeError extends Event {
+        @Label("Mensagem")
+        String message;
+
+        @Label("Fatal")
+        @Description("O erro terminou a execução do programa")
+        boolean fatal;
+    }
+}
@@ -0,0 +1,94 @@
+package br.uenp.compiladores;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Estado partilhado por todas as chamadas durante a execução de um programa
+ * (entrada e saída padrão). A saída tem buffer: é despejada antes de cada
+ * leitura, antes de cada mensagem de erro e no fim da execução.
+ *
+ * Guarda também a pilha de frames das chamadas. Cada execução corre numa só
+ * thread (no modo --batch, uma por programa), pelo que a pilha não precisa
+ * de sincronização.
+ */
+public class ExecutionContext {
+    private final InputReader input;
+    final OutputSink out;
+    final PrintStream err;
+    final MemoTable memo = MemoTable.fromSystemProperties(); // null sem -Dcsubset.memo=true
+    private int errors;
+    Profiler profiler; // Só no modo --profile
+    private Arena heap; // Criada no primeiro malloc
+
+    // Frames reutilizados: a chamada à profundidade d usa sempre frames[d]
+    private Frame[] frames = new Frame[16];
+    private int depth;
+
+    public ExecutionContext(InputStream in, PrintStream out, PrintStream err) {
+        this(in, out, err, OutputSink.DEFAULT_THRESHOLD);
+    }
+
+    public ExecutionContext(InputStream in, PrintStream out, PrintStream err, int outputThreshold) {
+        this.input = InputReader.of(in);
+        this.out = new OutputSink(out, outputThreshold);
+        this.err = err;
+    }
+
+    /** Entrada padrão; a saída pendente é despejada antes, para que os prompts apareçam. */
+    InputReader input() {
+        out.flush();
+        return input;
+    }
+
+    /** Mensagem de erro em execução, mantendo a ordem relativa à saída do programa. */
+    void error(String message) {
+        out.flush();
+        err.println(message);
+        errors++;
+        Events.runtimeError(message, false);
+    }
+
+    /** Mensagens de erro reportadas até agora (a MemoTable não guarda chamadas que as produziram). */
+    int errorCount() {
+        return errors;
+    }
+
+    /**
+     * Frame para uma nova chamada com pelo menos 'size' slots. As chamadas são
+     * aninhadas, pelo que o frame de cada profundidade só volta a ser usado
+     * depois de libertado com popFrame.
+     */
+    Frame pushFrame(int size) {
+        if (depth == frames.length) frames = Arrays.copyOf(frames, depth * 2);
+        Frame frame = frames[depth];
+        if (frame == null || frame.slots.length < size) {
+            frame = new Frame(size, this);
+            frames[depth] = frame;
+        }
+        depth++;
+        return frame;
+    }
+
+    void popFrame(Frame frame, int size) {
+        depth--;
+        // Não prende arrays nem structs da chamada que terminou
+        Arrays.fill(frame.slots, 0, size, null);
+        frame.returnValue = null;
+    }
+
+    /** Memória do malloc/calloc/free, reservada na primeira utilização. */
+    Arena heap() {
+        if (heap == null) heap = Arena.fromSystemProperties();
+        return heap;
+    }
+
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public void flush() {
+        out.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package br.uenp.compiladores;
+
+import java.io.Serializable;
+
+/**
+ * Expressão já rebaixada: literais pré-convertidos, operadores pré-decodificados
+ * e variáveis pré-resolvidas para slots. Cada nó avalia-se a si próprio.
+ *
+ * Além do eval() genérico, os pontos de entrada evalInt/evalDouble/evalBoolean
+ * devolvem o valor já em tipo primitivo. Os operadores sobrescrevem-nos para
+ * que uma expressão inteira seja calculada sem criar Integer/Double
+ * intermediários; os restantes nós convertem o resultado do eval().
+ *
+ * O tipo estático foi verificado pelo TypeChecker, pelo que as conversões por
+ * omissão seguem o tipo do nó em vez de testarem o valor: uma expressão int
+ * dá um Integer (a verificação genérica fica só para os casos de erro, como
+ * uma variável não inicializada, e para membros de union).
+ */
+public abstract class ExprNode implements Serializable {
+    // Fixo em todos os nós: as entradas da cache são invalidadas pelo código das classes (ProgramCache), não por este número
+    private static final long serialVersionUID = 1L;
+
+    protected final CType type;
+
+    protected ExprNode(CType type) {
+        this.type = type;
+    }
+
+    public CType getType() {
+        return type;
+    }
+
+    public abstract Object eval(Frame frame);
+
+    public int evalInt(Frame frame) {
+        Object value = eval(frame);
+        if (type == CType.INT && value instanceof Integer) return (Integer) value;
+        return Expressions.toInt(value);
+    }
+
+    public double evalDouble(Frame frame) {
+        Object value = eval(frame);
+        if (type == CType.FLOAT && value instanceof Double) return (Double) value;
+        return Expressions.toDouble(value);
+    }
+
+    public boolean evalBoolean(Frame frame) {
+        switch (type.getKind()) {
+            case INT:
+            case CHAR: return evalInt(frame) != 0;
+            case FLOAT: return evalDouble(frame) != 0.0;
+            default: return Expressions.forceBoolean(eval(frame));
+        }
+    }
+
+    public abstract <R> R accept(NodeVisitor<R> visitor);
+}
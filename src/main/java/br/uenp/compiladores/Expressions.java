@@ -0,0 +1,890 @@
+package br.uenp.compiladores;
+
+import java.util.Objects;
+
+/**
+ * Nós executáveis de expressão produzidos pelo MyVisitor.
+ */
+public final class Expressions {
+
+    private Expressions() { }
+
+    public enum Op { ADD, SUB, MUL, DIV, GT, GTE, LT, LTE, EQ, NEQ }
+
+    // ============================================================
+    //               FUNÇÕES AUXILIARES
+    // ============================================================
+
+    static int toInt(Object obj) {
+        if (obj instanceof Integer) { return (Integer) obj; }
+        if (obj instanceof Double) { return (int) (double) (Double) obj; }
+        if (obj instanceof Character) { return (Character) obj; }
+        if (obj instanceof Boolean) { return ((Boolean) obj) ? 1 : 0; }
+        throw new RuntimeException("Erro de tipo: esperado um número, mas recebido " + obj);
+    }
+
+    static double toDouble(Object obj) {
+        if (obj instanceof Double) { return (Double) obj; }
+        return toInt(obj);
+    }
+
+    static boolean forceBoolean(Object obj) {
+        if (obj instanceof Boolean) { return (Boolean) obj; }
+        if (obj instanceof Integer) { return ((Integer) obj) != 0; }
+        if (obj instanceof Double) { return ((Double) obj) != 0.0; }
+        if (obj instanceof Character) { return ((Character) obj) != '\0'; }
+        if (obj instanceof Reference) { return obj != Reference.NULL; }
+        throw new RuntimeException("Erro de tipo: não é possível avaliar a expressão como booleana.");
+    }
+
+    static Object memberOf(Object obj, int offset, String member) {
+        if (obj instanceof AggregateInstance) return ((AggregateInstance) obj).read(offset, member);
+        throw new RuntimeException("Erro: Não é struct/union.");
+    }
+
+    /**
+     * Avalia a expressão já convertida para o tipo de destino (atribuição,
+     * argumento ou retorno). Os escalares passam pelo caminho primitivo, pelo
+     * que uma variável int guarda sempre um Integer, uma float um Double e uma
+     * char um Character.
+     */
+    static Object evalAs(ExprNode node, CType type, Frame frame) {
+        switch (type.getKind()) {
+            case INT: return node.evalInt(frame);
+            case FLOAT: return node.evalDouble(frame);
+            case CHAR: return (char) node.evalInt(frame);
+            case POINTER: return pointer(node.eval(frame));
+            default: return node.eval(frame);
+        }
+    }
+
+    // O 0 atribuído a um ponteiro é o NULL (o TypeChecker só aceita a constante 0)
+    static Object pointer(Object value) {
+        return value instanceof Number ? Reference.NULL : value;
+    }
+
+    /** O mesmo que evalAs, para um valor já calculado (usado pela StackMachine). */
+    static Object convert(Object value, CType type) {
+        switch (type.getKind()) {
+            case INT: return toInt(value);
+            case FLOAT: return toDouble(value);
+            case CHAR: return (char) toInt(value);
+            case POINTER: return pointer(value);
+            default: return value;
+        }
+    }
+
+    /** Valor lógico de um valor do tipo estático dado, como o evalBoolean por omissão. */
+    static boolean truth(Object value, CType type) {
+        switch (type.getKind()) {
+            case INT:
+            case CHAR: return toInt(value) != 0;
+            case FLOAT: return toDouble(value) != 0.0;
+            default: return forceBoolean(value);
+        }
+    }
+
+    static Object load(Frame frame, int slot, String name) {
+        Object value = frame.slots[slot];
+        if (value == null) {
+            throw new RuntimeException("Erro: Variável '" + name + "' pode não ter sido inicializada.");
+        }
+        return value;
+    }
+
+    // ============================================================
+    //               LITERAIS E VARIÁVEIS
+    // ============================================================
+
+    /** Literal numérico/caractere ou constante de #define, já convertido. */
+    public static final class Literal extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final Object value;
+
+        public Literal(Object value, CType type) {
+            super(type);
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitLiteral(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return value;
+        }
+    }
+
+    public static final class LocalRead extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+
+        public LocalRead(Symbol symbol) {
+            super(symbol.type);
+            this.slot = symbol.slot;
+            this.name = symbol.name;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitLocalRead(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            Object value = frame.slots[slot];
+            if (value == null) {
+                frame.context.error("Erro: Variável '" + name + "' pode não ter sido inicializada.");
+            }
+            return value;
+        }
+    }
+
+    /** Leitura de elemento; arrays de int/float/char são int[]/double[]/char[]. */
+    public static final class ArrayRead extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final ExprNode index;
+
+        public ArrayRead(Symbol array, ExprNode index, CType elementType) {
+            super(elementType);
+            this.slot = array.slot;
+            this.name = array.name;
+            this.index = index;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitArrayRead(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            try {
+                Object array = load(frame, slot, name);
+                int i = index.evalInt(frame);
+                if (array instanceof int[]) return ((int[]) array)[i];
+                if (array instanceof double[]) return ((double[]) array)[i];
+                if (array instanceof char[]) return ((char[]) array)[i];
+                return ((Object[]) array)[i];
+            } catch (Exception e) { frame.context.error(e.getMessage()); return null; }
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            if (type != CType.INT && type != CType.CHAR) return super.evalInt(frame);
+            try {
+                Object array = load(frame, slot, name);
+                int i = index.evalInt(frame);
+                return type == CType.INT ? ((int[]) array)[i] : ((char[]) array)[i];
+            } catch (Exception e) {
+                frame.context.error(e.getMessage());
+                return toInt(null); // Tal como no eval(): o elemento em falta é um erro de tipo
+            }
+        }
+
+        @Override
+        public double evalDouble(Frame frame) {
+            if (type != CType.FLOAT) return evalInt(frame);
+            try {
+                return ((double[]) load(frame, slot, name))[index.evalInt(frame)];
+            } catch (Exception e) {
+                frame.context.error(e.getMessage());
+                return toDouble(null);
+            }
+        }
+    }
+
+    public static final class MemberRead extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType instanceType;
+        final String member;
+        final int offset;
+
+        public MemberRead(Symbol instance, String member, CType memberType) {
+            super(memberType);
+            this.slot = instance.slot;
+            this.name = instance.name;
+            this.instanceType = instance.type;
+            this.member = member;
+            this.offset = instance.type.getDefinition().getOffset(member);
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitMemberRead(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            try {
+                return memberOf(load(frame, slot, name), offset, member);
+            } catch (Exception e) { frame.context.error(e.getMessage()); return null; }
+        }
+    }
+
+    // ============================================================
+    //               PONTEIROS
+    // ============================================================
+
+    /** '&x', '&s.membro' ou '&v[i]' (index != null). */
+    public static final class AddressOf extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType targetType;
+        final String member;
+        final int offset;
+        final ExprNode index;
+
+        public AddressOf(Symbol target, String member, CType type) {
+            super(type);
+            this.slot = target.slot;
+            this.name = target.name;
+            this.targetType = target.type;
+            this.member = member;
+            this.offset = member != null ? target.type.getDefinition().getOffset(member) : -1;
+            this.index = null;
+        }
+
+        public AddressOf(Symbol array, ExprNode index) {
+            super(CType.pointerTo(array.type.getElement()));
+            this.slot = array.slot;
+            this.name = array.name;
+            this.targetType = array.type;
+            this.member = null;
+            this.offset = -1;
+            this.index = index;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitAddressOf(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            if (index != null) return element(frame, index.evalInt(frame));
+            if (member != null) return Reference.member(frame.slots, slot, member, offset);
+            return Reference.slot(frame.slots, slot);
+        }
+
+        Reference element(Frame frame, int i) {
+            return Reference.element(load(frame, slot, name), i);
+        }
+    }
+
+    public static final class Deref extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode pointer;
+
+        public Deref(ExprNode pointer, CType type) {
+            super(type);
+            this.pointer = pointer;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitDeref(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            Reference ptrValue = (Reference) pointer.eval(frame);
+            if (ptrValue == null) throw new RuntimeException("Erro: Desreferência inválida.");
+            return ptrValue.get(getType());
+        }
+    }
+
+    /** '&p->membro': p->membro é Deref(MemberPointer) e a atribuição um DerefAssignment. */
+    public static final class MemberPointer extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode pointer;
+        final String member;
+        final int offset;     // Slot na AggregateInstance (structs em variáveis)
+        final int byteOffset; // Deslocamento em bytes (structs na Arena)
+
+        public MemberPointer(ExprNode pointer, String member) {
+            super(CType.pointerTo(pointer.getType().getElement().getDefinition().getMemberType(member)));
+            StructDefinition definition = pointer.getType().getElement().getDefinition();
+            this.pointer = pointer;
+            this.member = member;
+            this.offset = definition.getOffset(member);
+            this.byteOffset = Arena.offsetOf(definition, member);
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitMemberPointer(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return apply(pointer.eval(frame));
+        }
+
+        Object apply(Object instance) {
+            if (instance == null) throw new RuntimeException("Erro: Desreferência inválida.");
+            return ((Reference) instance).member(member, offset, byteOffset);
+        }
+    }
+
+    // ============================================================
+    //               OPERADORES
+    // ============================================================
+
+    public static final class Not extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode operand;
+
+        public Not(ExprNode operand) {
+            super(CType.INT);
+            this.operand = operand;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitNot(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            return evalBoolean(frame) ? 1 : 0;
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return !operand.evalBoolean(frame);
+        }
+    }
+
+    /**
+     * '+', '-', '*' e '/'. O tipo do resultado é decidido no rebaixamento
+     * (float se um dos lados for float, int caso contrário) e escolhe a
+     * especialização: IntArithmetic ou FloatArithmetic.
+     */
+    public abstract static class Arithmetic extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final Op op;
+        final ExprNode left;
+        final ExprNode right;
+
+        Arithmetic(Op op, ExprNode left, ExprNode right, CType type) {
+            super(type);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        public static Arithmetic of(Op op, ExprNode left, ExprNode right) {
+            if (left.getType().isPointer() || right.getType().isPointer()) {
+                return new PointerArithmetic(op, left, right);
+            }
+            if (left.getType() == CType.FLOAT || right.getType() == CType.FLOAT) {
+                return new FloatArithmetic(op, left, right);
+            }
+            return new IntArithmetic(op, left, right);
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitArithmetic(this);
+        }
+    }
+
+    /**
+     * 'p + n', 'n + p' e 'p - n': o ponteiro avança n elementos do tipo
+     * apontado (n bytes * sizeof na Arena, n posições num array). Os outros
+     * casos são rejeitados pelo TypeChecker.
+     */
+    public static final class PointerArithmetic extends Arithmetic {
+        private static final long serialVersionUID = 1L;
+
+        PointerArithmetic(Op op, ExprNode left, ExprNode right) {
+            super(op, left, right, left.getType().isPointer() ? left.getType() : right.getType());
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            boolean pointerLeft = left.getType().isPointer();
+            Object pointer = (pointerLeft ? left : right).eval(frame);
+            int count = (pointerLeft ? right : left).evalInt(frame);
+            return apply(op, pointer, count, getType().getElement());
+        }
+
+        static Object apply(Op op, Object pointer, int count, CType element) {
+            if (!(pointer instanceof Reference)) throw new RuntimeException("Erro: Aritmética sobre um ponteiro inválido.");
+            return ((Reference) pointer).offset(op == Op.SUB ? -count : count, element);
+        }
+    }
+
+    public static final class IntArithmetic extends Arithmetic {
+        private static final long serialVersionUID = 1L;
+
+        IntArithmetic(Op op, ExprNode left, ExprNode right) {
+            super(op, left, right, CType.INT);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return evalInt(frame);
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            return apply(op, left.evalInt(frame), right.evalInt(frame));
+        }
+
+        static int apply(Op op, int v1, int v2) {
+            switch (op) {
+                case ADD: return v1 + v2;
+                case SUB: return v1 - v2;
+                case MUL: return v1 * v2;
+                default: if (v2 == 0) throw new RuntimeException("Erro: Divisão por zero."); return v1 / v2;
+            }
+        }
+
+        @Override
+        public double evalDouble(Frame frame) {
+            return evalInt(frame);
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return evalInt(frame) != 0;
+        }
+    }
+
+    public static final class FloatArithmetic extends Arithmetic {
+        private static final long serialVersionUID = 1L;
+
+        FloatArithmetic(Op op, ExprNode left, ExprNode right) {
+            super(op, left, right, CType.FLOAT);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return evalDouble(frame);
+        }
+
+        @Override
+        public double evalDouble(Frame frame) {
+            return apply(op, left.evalDouble(frame), right.evalDouble(frame));
+        }
+
+        static double apply(Op op, double v1, double v2) {
+            switch (op) {
+                case ADD: return v1 + v2;
+                case SUB: return v1 - v2;
+                case MUL: return v1 * v2;
+                default: if (v2 == 0.0) throw new RuntimeException("Erro: Divisão por zero."); return v1 / v2;
+            }
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            return (int) evalDouble(frame);
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return evalDouble(frame) != 0.0;
+        }
+    }
+
+    /**
+     * Comparação genérica, usada quando os tipos dos operandos não são ambos
+     * aritméticos. Com operandos int/char ou float o rebaixamento escolhe
+     * IntRelational ou FloatRelational, que comparam sem converter para double.
+     */
+    public static class Relational extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final Op op;
+        final ExprNode left;
+        final ExprNode right;
+
+        Relational(Op op, ExprNode left, ExprNode right) {
+            super(CType.INT);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        public static Relational of(Op op, ExprNode left, ExprNode right) {
+            CType l = left.getType(), r = right.getType();
+            if (!l.isArithmetic() || !r.isArithmetic()) return new Relational(op, left, right);
+            if (l == CType.FLOAT || r == CType.FLOAT) return new FloatRelational(op, left, right);
+            return new IntRelational(op, left, right);
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitRelational(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            return evalBoolean(frame) ? 1 : 0;
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return compareValues(left.eval(frame), right.eval(frame));
+        }
+
+        final boolean compareValues(Object l, Object r) {
+            // Ponteiros: só '==' e '!=' (TypeChecker), com o 0 como NULL
+            if (l instanceof Reference || r instanceof Reference) {
+                return Objects.equals(pointer(l), pointer(r)) == (op == Op.EQ);
+            }
+            if (l instanceof Number && r instanceof Number) {
+                return compare(((Number) l).doubleValue(), ((Number) r).doubleValue());
+            } else if (l instanceof Character && r instanceof Character) {
+                return compare((Character) l, (Character) r);
+            }
+            throw new RuntimeException("Erro de tipo na comparação.");
+        }
+
+        final boolean compare(double v1, double v2) {
+            switch (op) {
+                case GT: return v1 > v2;
+                case GTE: return v1 >= v2;
+                case LT: return v1 < v2;
+                case LTE: return v1 <= v2;
+                case EQ: return v1 == v2;
+                default: return v1 != v2;
+            }
+        }
+    }
+
+    public static final class IntRelational extends Relational {
+        private static final long serialVersionUID = 1L;
+
+        IntRelational(Op op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return compareInts(op, left.evalInt(frame), right.evalInt(frame));
+        }
+
+        static boolean compareInts(Op op, int v1, int v2) {
+            switch (op) {
+                case GT: return v1 > v2;
+                case GTE: return v1 >= v2;
+                case LT: return v1 < v2;
+                case LTE: return v1 <= v2;
+                case EQ: return v1 == v2;
+                default: return v1 != v2;
+            }
+        }
+    }
+
+    public static final class FloatRelational extends Relational {
+        private static final long serialVersionUID = 1L;
+
+        FloatRelational(Op op, ExprNode left, ExprNode right) {
+            super(op, left, right);
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return compare(left.evalDouble(frame), right.evalDouble(frame));
+        }
+    }
+
+    public static final class LogicalAnd extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode left;
+        final ExprNode right;
+
+        public LogicalAnd(ExprNode left, ExprNode right) {
+            super(CType.INT);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitLogicalAnd(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            return evalBoolean(frame) ? 1 : 0;
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return left.evalBoolean(frame) && right.evalBoolean(frame);
+        }
+    }
+
+    public static final class LogicalOr extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode left;
+        final ExprNode right;
+
+        public LogicalOr(ExprNode left, ExprNode right) {
+            super(CType.INT);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitLogicalOr(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            return evalBoolean(frame);
+        }
+
+        @Override
+        public int evalInt(Frame frame) {
+            return evalBoolean(frame) ? 1 : 0;
+        }
+
+        @Override
+        public boolean evalBoolean(Frame frame) {
+            return left.evalBoolean(frame) || right.evalBoolean(frame);
+        }
+    }
+
+    // ============================================================
+    //               CHAMADAS DE FUNÇÃO
+    // ============================================================
+
+    /** Chamada com a função alvo já resolvida no rebaixamento. */
+    public static final class Call extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        final FunctionSymbol function;
+        final ExprNode[] args;
+        final CType[] parameterTypes;
+
+        public Call(FunctionSymbol function, ExprNode[] args) {
+            super(function.type);
+            this.function = function;
+            this.args = args;
+            this.parameterTypes = new CType[args.length];
+            for (int i = 0; i < args.length; i++) parameterTypes[i] = function.getParameters().get(i).type;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitCall(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            // O frame é reservado antes dos argumentos: chamadas dentro deles usam a profundidade seguinte
+            ExecutionContext context = frame.context;
+            int size = function.getFrameSize();
+            Frame callee = context.pushFrame(size);
+            try {
+                // Os parâmetros ocupam os primeiros slots do frame, pela ordem da declaração
+                for (int i = 0; i < args.length; i++) {
+                    callee.slots[i] = evalAs(args[i], parameterTypes[i], frame);
+                }
+                if (context.memo != null && function.getMemoIndex() >= 0) return memoized(function, callee, context.memo);
+                return run(function, callee);
+            } finally {
+                context.popFrame(callee, size);
+            }
+        }
+
+        static Object invoke(FunctionSymbol function, Object[] args, ExecutionContext context) {
+            int size = function.getFrameSize();
+            Frame callee = context.pushFrame(size);
+            try {
+                System.arraycopy(args, 0, callee.slots, 0, args.length);
+                return run(function, callee);
+            } finally {
+                context.popFrame(callee, size);
+            }
+        }
+
+        private static Object memoized(FunctionSymbol function, Frame callee, MemoTable memo) {
+            // A chave é calculada antes da execução: o corpo pode alterar os parâmetros
+            long key = MemoTable.key(function, callee.slots);
+            Object cached = memo.get(function, key);
+            if (cached != null) return cached;
+            int errors = callee.context.errorCount();
+            Object result = run(function, callee);
+            if (callee.context.errorCount() == errors) memo.put(function, key, result);
+            return result;
+        }
+
+        private static Object run(FunctionSymbol function, Frame callee) {
+            if (Events.recording()) return runRecorded(function, callee);
+            if (function.getBody().exec(callee) == StmtNode.RETURN) {
+                return callee.returnValue;
+            }
+            if (!function.type.isVoid()) {
+                throw new RuntimeException("Erro: Função não-void '" + function.name + "' chegou ao fim sem 'return'.");
+            }
+            return null;
+        }
+
+        // O mesmo que run(), com o evento FunctionCall, enquanto o JFR estiver ativo
+        private static Object runRecorded(FunctionSymbol function, Frame callee) {
+            Events.FunctionCall event = new Events.FunctionCall();
+            event.begin();
+            try {
+                if (function.getBody().exec(callee) == StmtNode.RETURN) {
+                    return callee.returnValue;
+                }
+                if (!function.type.isVoid()) {
+                    throw new RuntimeException("Erro: Função não-void '" + function.name + "' chegou ao fim sem 'return'.");
+                }
+                return null;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.function = function.name;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Função de <string.h> ou <stdlib.h> (com o respetivo #include), executada
+     * em Java em vez de por um corpo C: as de strings e memória pelo CStrings
+     * sobre os próprios arrays, o malloc/calloc/free pela Arena do contexto.
+     * Os tipos dos argumentos foram verificados pelo TypeChecker: arrays nas
+     * posições de string/memória, um ponteiro no free e inteiros nas de valor
+     * e tamanho. As funções de <string.h> não aceitam ponteiros (nem a memória
+     * do malloc), porque o CStrings trabalha sobre os arrays Java.
+     */
+    public static final class Intrinsic extends ExprNode {
+        private static final long serialVersionUID = 1L;
+
+        public enum Kind {
+            STRLEN("<string.h>", 1), STRCPY("<string.h>", 2), STRCMP("<string.h>", 2), STRCAT("<string.h>", 2),
+            MEMSET("<string.h>", 3), MEMCPY("<string.h>", 3),
+            MALLOC("<stdlib.h>", 1), CALLOC("<stdlib.h>", 2), FREE("<stdlib.h>", 1);
+
+            final String header;
+            final int arity;
+
+            Kind(String header, int arity) {
+                this.header = header;
+                this.arity = arity;
+            }
+
+            /** A função de biblioteca com este nome, ou null. */
+            static Kind of(String name) {
+                for (Kind kind : values()) {
+                    if (kind.name().toLowerCase().equals(name)) return kind;
+                }
+                return null;
+            }
+
+            // Posições com um valor inteiro (o resto são arrays ou ponteiros)
+            boolean isCount(int position) {
+                switch (this) {
+                    case MEMSET: return position > 0;
+                    case MEMCPY: return position == 2;
+                    case MALLOC:
+                    case CALLOC: return true;
+                    default: return false;
+                }
+            }
+
+            CType resultType(ExprNode[] args) {
+                switch (this) {
+                    case STRLEN:
+                    case STRCMP: return CType.INT;
+                    case MALLOC:
+                    case CALLOC: return CType.pointerTo(CType.VOID);
+                    case FREE: return CType.VOID;
+                    default: return args[0].getType();
+                }
+            }
+        }
+
+        final Kind kind;
+        final ExprNode[] args;
+
+        public Intrinsic(Kind kind, ExprNode[] args) {
+            super(kind.resultType(args));
+            this.kind = kind;
+            this.args = args;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitIntrinsic(this);
+        }
+
+        @Override
+        public Object eval(Frame frame) {
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = kind.isCount(i) ? (Object) args[i].evalInt(frame) : args[i].eval(frame);
+            }
+            return apply(values, frame.context);
+        }
+
+        /** Aplica a função aos argumentos já avaliados (também usado pela StackMachine). */
+        Object apply(Object[] values, ExecutionContext context) {
+            switch (kind) {
+                case STRLEN: return CStrings.strlen((char[]) values[0]);
+                case STRCPY: return CStrings.strcpy((char[]) values[0], (char[]) values[1]);
+                case STRCMP: return CStrings.strcmp((char[]) values[0], (char[]) values[1]);
+                case STRCAT: return CStrings.strcat((char[]) values[0], (char[]) values[1]);
+                case MEMSET: return CStrings.memset(values[0], toInt(values[1]), toInt(values[2]));
+                case MEMCPY: return CStrings.memcpy(values[0], values[1], toInt(values[2]));
+                case MALLOC: return allocated(context.heap(), context.heap().allocate(toInt(values[0])));
+                case CALLOC: {
+                    long bytes = (long) toInt(values[0]) * toInt(values[1]);
+                    return allocated(context.heap(), context.heap().allocateZeroed(bytes));
+                }
+                default:
+                    context.heap().free(values[0]);
+                    return null;
+            }
+        }
+
+        private static Reference allocated(Arena heap, int address) {
+            return address == 0 ? Reference.NULL : Reference.heap(heap, address);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package br.uenp.compiladores;
+
+/**
+ * Registo de ativação de uma chamada de função: um slot por variável local
+ * (os parâmetros ocupam os primeiros) e o contexto de execução do programa.
+ * O 'return' deixa aqui o valor devolvido e conclui com StmtNode.RETURN.
+ *
+ * Os frames são reutilizados pelo ExecutionContext de chamada para chamada:
+ * o array de slots pode ser maior do que a função precisa.
+ */
+public final class Frame {
+    final Object[] slots;
+    final ExecutionContext context;
+    Object returnValue;
+
+    public Frame(int size, ExecutionContext context) {
+        this.slots = new Object[size];
+        this.context = context;
+    }
+
+    public ExecutionContext getContext() {
+        return context;
+    }
+}
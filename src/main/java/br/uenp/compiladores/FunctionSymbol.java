@@ -1,36 +1,45 @@
 package br.uenp.compiladores;
 
-import org.antlr.v4.runtime.tree.ParseTree;
 import java.util.List;
-import java.util.Map;
 
 public class FunctionSymbol extends Symbol {
+    private static final long serialVersionUID = 1L;
 
-    private final String name; // <-- ADICIONADO
-    private final List<Map.Entry<String, String>> parameters;
-    private final ParseTree body;
+    private final List<Symbol> parameters;
+    private StmtNode body; // Corpo já rebaixado para nós executáveis
+    private int frameSize; // Número de slots do frame, calculado pelo Resolver
+    private int memoIndex = -1; // Tabela na MemoTable, atribuída pela PurityAnalysis; -1 se não for memorizável
 
-    // Construtor atualizado
-    public FunctionSymbol(String name, String type, List<Map.Entry<String, String>> params, ParseTree body) {
-        super(type, null);
-        this.name = name; // <-- ADICIONADO
+    public FunctionSymbol(String name, CType returnType, List<Symbol> params) {
+        super(name, returnType, -1);
         this.parameters = params;
+    }
+
+    public List<Symbol> getParameters() {
+        return parameters;
+    }
+
+    public StmtNode getBody() {
+        return body;
+    }
+
+    public void setBody(StmtNode body) {
         this.body = body;
     }
 
-    public String getName() { // <-- NOVO MÉTODO
-        return name;
+    public int getFrameSize() {
+        return frameSize;
     }
 
-    public String getType() { // <-- NOVO MÉTODO
-        return super.type;
+    public void setFrameSize(int frameSize) {
+        this.frameSize = frameSize;
     }
 
-    public List<Map.Entry<String, String>> getParameters() {
-        return parameters;
+    public int getMemoIndex() {
+        return memoIndex;
     }
 
-    public ParseTree getBody() {
-        return body;
+    public void setMemoIndex(int memoIndex) {
+        this.memoIndex = memoIndex;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,196 @@
+package br.uenp.compiladores;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Leitor de tokens da entrada padrão para scanf e gets, sem as expressões
+ * regulares do Scanner: os bytes são lidos para um buffer e os números
+ * convertidos diretamente a partir dele. Quando a entrada padrão é um ficheiro
+ * regular, o ficheiro é mapeado em memória.
+ *
+ * O comportamento segue o do Scanner: os tokens são separados por espaço em
+ * branco, um token que não é do tipo pedido lança InputMismatchException e
+ * fica por consumir, e o fim da entrada lança NoSuchElementException.
+ */
+public final class InputReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final ByteBuffer mapped;
+    private final byte[] buffer;
+    private int position, limit;
+
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private boolean pending; // Token lido mas ainda não consumido (tipo incompatível)
+
+    public InputReader(InputStream in) {
+        this.in = in;
+        this.mapped = null;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    private InputReader(ByteBuffer mapped) {
+        this.in = null;
+        this.mapped = mapped;
+        this.buffer = null;
+    }
+
+    /** Leitor para o fluxo dado; para System.in tenta mapear o ficheiro redirecionado. */
+    public static InputReader of(InputStream in) {
+        if (in == System.in) {
+            try {
+                FileChannel channel = new FileInputStream(FileDescriptor.in).getChannel();
+                long start = channel.position();
+                long size = channel.size() - start;
+                if (size > 0 && size <= Integer.MAX_VALUE) {
+                    return new InputReader(channel.map(FileChannel.MapMode.READ_ONLY, start, size));
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                // Não é um ficheiro regular (terminal ou pipe): leitura por blocos
+            }
+        }
+        return new InputReader(in);
+    }
+
+    // ============================================================
+    //               TOKENS
+    // ============================================================
+
+    public int nextInt() {
+        readToken();
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i = 1;
+        }
+        if (i == tokenLength) throw new InputMismatchException();
+        for (int j = i; j < tokenLength; j++) {
+            if (!isDigit(token[j])) throw new InputMismatchException();
+        }
+        long value = 0;
+        for (; i < tokenLength; i++) {
+            value = value * 10 + (token[i] - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) throw outOfRange();
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw outOfRange();
+        // Só um valor válido consome o token: fora do intervalo fica por ler, como no Scanner
+        pending = false;
+        return (int) value;
+    }
+
+    private InputMismatchException outOfRange() {
+        return new InputMismatchException("For input string: \"" + tokenText() + "\"");
+    }
+
+    public double nextDouble() {
+        readToken();
+        if (!isDecimal()) throw new InputMismatchException();
+        double value = Double.parseDouble(tokenText());
+        pending = false;
+        return value;
+    }
+
+    /** Primeiro caractere do próximo token (scanf com %c). */
+    public char nextChar() {
+        readToken();
+        char c = token[0] >= 0 ? (char) token[0] : tokenText().charAt(0);
+        pending = false;
+        return c;
+    }
+
+    public String next() {
+        readToken();
+        pending = false;
+        return tokenText();
+    }
+
+    // Números como o Scanner os aceita: sinal, dígitos, ponto e expoente opcionais
+    private boolean isDecimal() {
+        int i = 0;
+        if (token[0] == '-' || token[0] == '+') i++;
+        int digits = 0;
+        while (i < tokenLength && isDigit(token[i])) { i++; digits++; }
+        if (i < tokenLength && token[i] == '.') {
+            i++;
+            while (i < tokenLength && isDigit(token[i])) { i++; digits++; }
+        }
+        if (digits == 0) {
+            String rest = new String(token, i, tokenLength - i, StandardCharsets.US_ASCII);
+            return rest.equals("NaN") || rest.equals("Infinity");
+        }
+        if (i < tokenLength && (token[i] == 'e' || token[i] == 'E')) {
+            i++;
+            if (i < tokenLength && (token[i] == '-' || token[i] == '+')) i++;
+            int exponent = 0;
+            while (i < tokenLength && isDigit(token[i])) { i++; exponent++; }
+            if (exponent == 0) return false;
+        }
+        return i == tokenLength;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private String tokenText() {
+        return new String(token, 0, tokenLength, Charset.defaultCharset());
+    }
+
+    private void readToken() {
+        if (pending) return;
+        int b = read();
+        while (b != -1 && isWhitespace(b)) b = read();
+        if (b == -1) throw new NoSuchElementException();
+
+        tokenLength = 0;
+        while (b != -1 && !isWhitespace(b)) {
+            if (tokenLength == token.length) token = Arrays.copyOf(token, token.length * 2);
+            token[tokenLength++] = (byte) b;
+            b = read();
+        }
+        pending = true;
+    }
+
+    // Os mesmos separadores ASCII que o \p{javaWhitespace} do Scanner
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+
+    // ============================================================
+    //               BYTES
+    // ============================================================
+
+    private int read() {
+        if (mapped != null) {
+            return mapped.hasRemaining() ? mapped.get() & 0xFF : -1;
+        }
+        if (position == limit) {
+            try {
+                limit = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+}
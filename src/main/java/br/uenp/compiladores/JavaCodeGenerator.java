@@ -0,0 +1,606 @@
+package br.uenp.compiladores;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Traduz o programa rebaixado para código-fonte Java com tipos primitivos:
+ * cada função vira um método estático com locais int/double/char, cada
+ * struct/union uma classe aninhada e o I/O chamadas ao CRuntime.
+ * As expressões devolvem o código gerado; as instruções escrevem em 'out'.
+ */
+public class JavaCodeGenerator implements NodeVisitor<String> {
+
+    private final StringBuilder out = new StringBuilder();
+    private int indent = 0;
+    private Set<Integer> cells; // Slots da função atual cujo endereço é tomado com '&'
+    private final List<String> formats = new ArrayList<>();
+
+    public String generate(Program program, String className) {
+        line("import br.uenp.compiladores.CRuntime;");
+        line("import br.uenp.compiladores.CStrings;");
+        line("import br.uenp.compiladores.PrintfFormat;");
+        line("");
+        line("public final class " + className + " {");
+        indent++;
+        line("");
+        line("public static void main(String[] args) {");
+        line("    CRuntime.run(() -> f_main());");
+        line("}");
+
+        for (StructDefinition struct : program.getStructs()) generateStruct(struct);
+        for (StructDefinition union : program.getUnions()) generateUnion(union);
+
+        FunctionSymbol main = program.getFunctions().get("main");
+        if (main == null) throw new RuntimeException("Erro: Função 'main' não encontrada.");
+        if (!main.getParameters().isEmpty()) throw unsupported("parâmetros em 'main'");
+        for (FunctionSymbol function : program.getFunctions().values()) generateFunction(function);
+
+        // Cada printf analisa o formato uma única vez, na inicialização da classe
+        if (!formats.isEmpty()) line("");
+        for (int i = 0; i < formats.size(); i++) {
+            line("private static final PrintfFormat FMT_" + i + " = new PrintfFormat(" + stringLiteral(formats.get(i)) + ");");
+        }
+
+        indent--;
+        line("}");
+        return out.toString();
+    }
+
+    // ============================================================
+    //               FUNÇÕES AUXILIARES
+    // ============================================================
+
+    private void line(String text) {
+        if (!text.isEmpty()) out.append("    ".repeat(indent));
+        out.append(text).append('\n');
+    }
+
+    private static RuntimeException unsupported(String what) {
+        return new RuntimeException("Erro: Recurso não suportado pelo compilador JVM: " + what + ".");
+    }
+
+    private static String javaType(CType type) {
+        switch (type.getKind()) {
+            case INT: return "int";
+            case FLOAT: return "double";
+            case CHAR: return "char";
+            case VOID: return "void";
+            case STRUCT: return "S_" + type.getDefinition().getName();
+            case UNION: return "U_" + type.getDefinition().getName();
+            case ARRAY: return javaType(type.getElement()) + "[]";
+            default: return refType(type.getElement());
+        }
+    }
+
+    private static String refType(CType pointee) {
+        switch (pointee.getKind()) {
+            case INT: return "CRuntime.IntRef";
+            case FLOAT: return "CRuntime.DoubleRef";
+            case CHAR: return "CRuntime.CharRef";
+            case VOID: return "Object";
+            default: throw unsupported("ponteiro para " + pointee);
+        }
+    }
+
+    private static String defaultValue(CType type) {
+        switch (type.getKind()) {
+            case INT: return "0";
+            case FLOAT: return "0.0";
+            case CHAR: return "(char) 0";
+            case ARRAY: return "new " + javaType(type.getElement()) + "[" + type.getLength() + "]";
+            case STRUCT:
+            case UNION: return "new " + javaType(type) + "()";
+            default: return "null";
+        }
+    }
+
+    private static String local(String name, int slot) {
+        return name + "_" + slot;
+    }
+
+    private String variable(String name, int slot) {
+        return cells.contains(slot) ? local(name, slot) + "[0]" : local(name, slot);
+    }
+
+    private static String stringLiteral(String text) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // Relacionais e lógicos produzem boolean em Java; os restantes seguem o tipo C
+    private static boolean isBoolean(ExprNode node) {
+        return node instanceof Expressions.Relational || node instanceof Expressions.Not
+                || node instanceof Expressions.LogicalAnd || node instanceof Expressions.LogicalOr;
+    }
+
+    private static boolean isConstant(ExprNode node) {
+        if (node instanceof Expressions.Literal) return true;
+        if (node instanceof Expressions.Not) return isConstant(((Expressions.Not) node).operand);
+        if (node instanceof Expressions.Arithmetic) {
+            Expressions.Arithmetic a = (Expressions.Arithmetic) node;
+            return isConstant(a.left) && isConstant(a.right);
+        }
+        if (node instanceof Expressions.Relational) {
+            Expressions.Relational r = (Expressions.Relational) node;
+            return isConstant(r.left) && isConstant(r.right);
+        }
+        if (node instanceof Expressions.LogicalAnd) {
+            Expressions.LogicalAnd l = (Expressions.LogicalAnd) node;
+            return isConstant(l.left) && isConstant(l.right);
+        }
+        if (node instanceof Expressions.LogicalOr) {
+            Expressions.LogicalOr l = (Expressions.LogicalOr) node;
+            return isConstant(l.left) && isConstant(l.right);
+        }
+        return false;
+    }
+
+    private String condition(ExprNode node) {
+        String code = asBoolean(node);
+        // Condições constantes fariam o javac rejeitar código após laços "infinitos"
+        return isConstant(node) ? "CRuntime.cond(" + code + ")" : code;
+    }
+
+    private String asBoolean(ExprNode node) {
+        String code = node.accept(this);
+        if (isBoolean(node)) return code;
+        switch (node.getType().getKind()) {
+            case INT: return "(" + code + " != 0)";
+            case FLOAT: return "(" + code + " != 0.0)";
+            case CHAR: return "(" + code + " != '\\0')";
+            default: return "(" + code + " != null)";
+        }
+    }
+
+    // Converte o valor da expressão para o tipo de destino (atribuições, argumentos, retorno)
+    private String asType(ExprNode node, CType target) {
+        String code = node.accept(this);
+        CType.Kind source = node.getType().getKind();
+        if (isBoolean(node)) {
+            code = "(" + code + " ? 1 : 0)";
+            source = CType.Kind.INT;
+        }
+        switch (target.getKind()) {
+            case INT: return source == CType.Kind.FLOAT ? "(int) (" + code + ")" : code;
+            case FLOAT: return code;
+            case CHAR: return source == CType.Kind.CHAR ? code : "(char) (" + code + ")";
+            case POINTER: {
+                if (source != CType.Kind.POINTER) return "null"; // A constante 0
+                return node.getType().equals(target) ? code : "(" + javaType(target) + ") " + code; // De/para void*
+            }
+            default: return code;
+        }
+    }
+
+    // ============================================================
+    //               DECLARAÇÕES GLOBAIS
+    // ============================================================
+
+    private void generateStruct(StructDefinition struct) {
+        String className = "S_" + struct.getName();
+        line("");
+        line("static final class " + className + " {");
+        indent++;
+        for (Map.Entry<String, CType> member : struct.getMembers().entrySet()) {
+            line(javaType(member.getValue()) + " m_" + member.getKey() + ";");
+        }
+        for (Map.Entry<String, CType> member : struct.getMembers().entrySet()) {
+            CType type = member.getValue();
+            if (!type.isArithmetic()) continue;
+            String field = "s.m_" + member.getKey();
+            generateMemberRef(className, member.getKey(), type, field, field + " = value;");
+        }
+        indent--;
+        line("}");
+    }
+
+    private void generateUnion(StructDefinition union) {
+        String className = "U_" + union.getName();
+        line("");
+        line("static final class " + className + " {");
+        indent++;
+        line("Object value; // Todos os membros partilham o mesmo valor");
+        for (Map.Entry<String, CType> member : union.getMembers().entrySet()) {
+            CType type = member.getValue();
+            if (!type.isArithmetic()) continue;
+            generateMemberRef(className, member.getKey(), type, unionRead("s", member.getKey(), type), "s.value = value;");
+        }
+        indent--;
+        line("}");
+    }
+
+    private void generateMemberRef(String className, String member, CType type, String read, String write) {
+        String ref = refType(type);
+        line("static " + ref + " ref_" + member + "(final " + className + " s) {");
+        line("    return new " + ref + "() {");
+        line("        @Override public " + javaType(type) + " get() { return " + read + "; }");
+        line("        @Override public void set(" + javaType(type) + " value) { " + write + " }");
+        line("    };");
+        line("}");
+    }
+
+    private static String unionRead(String instance, String member, CType type) {
+        switch (type.getKind()) {
+            case INT: return "CRuntime.asInt(" + instance + ".value, " + stringLiteral(member) + ")";
+            case FLOAT: return "CRuntime.asDouble(" + instance + ".value, " + stringLiteral(member) + ")";
+            case CHAR: return "CRuntime.asChar(" + instance + ".value, " + stringLiteral(member) + ")";
+            default: return "(" + javaType(type) + ") " + instance + ".value";
+        }
+    }
+
+    private void generateFunction(FunctionSymbol function) {
+        cells = new HashSet<>();
+        function.getBody().accept(new NodeScanner() {
+            @Override
+            public Void visitAddressOf(Expressions.AddressOf node) {
+                if (node.index != null) {
+                    if (!node.targetType.getElement().isArithmetic()) throw unsupported("'&' sobre " + node.targetType.getElement());
+                } else if (node.member == null) {
+                    if (!node.targetType.isArithmetic()) throw unsupported("'&' sobre " + node.targetType);
+                    cells.add(node.slot);
+                }
+                return super.visitAddressOf(node);
+            }
+        });
+
+        StringBuilder params = new StringBuilder();
+        for (Symbol param : function.getParameters()) {
+            if (params.length() > 0) params.append(", ");
+            String name = cells.contains(param.slot) ? "p_" + local(param.name, param.slot) : local(param.name, param.slot);
+            params.append(javaType(param.type)).append(' ').append(name);
+        }
+
+        line("");
+        line("static " + javaType(function.getType()) + " f_" + function.getName() + "(" + params + ") {");
+        indent++;
+        for (Symbol param : function.getParameters()) {
+            if (cells.contains(param.slot)) {
+                String name = local(param.name, param.slot);
+                line(javaType(param.type) + "[] " + name + " = { p_" + name + " };");
+            }
+        }
+        // 'if (true)' mantém alcançável o código seguinte, como exige o javac
+        out.append("    ".repeat(indent)).append("if (true) ");
+        function.getBody().accept(this);
+        if (!function.getType().isVoid()) {
+            line("throw CRuntime.missingReturn(" + stringLiteral(function.getName()) + ");");
+        }
+        indent--;
+        line("}");
+    }
+
+    // ============================================================
+    //               EXPRESSÕES
+    // ============================================================
+
+    @Override
+    public String visitLiteral(Expressions.Literal node) {
+        Object value = node.value;
+        if (value instanceof Character) return "((char) " + (int) (Character) value + ")";
+        if (value instanceof char[]) {
+            char[] text = (char[]) value;
+            return "CStrings.literal(" + stringLiteral(new String(text, 0, text.length - 1)) + ")";
+        }
+        return value.toString();
+    }
+
+    @Override
+    public String visitLocalRead(Expressions.LocalRead node) {
+        return variable(node.name, node.slot);
+    }
+
+    @Override
+    public String visitArrayRead(Expressions.ArrayRead node) {
+        return variable(node.name, node.slot) + "[" + asType(node.index, CType.INT) + "]";
+    }
+
+    @Override
+    public String visitMemberRead(Expressions.MemberRead node) {
+        String instance = variable(node.name, node.slot);
+        if (node.instanceType.isUnion()) return unionRead(instance, node.member, node.getType());
+        return instance + ".m_" + node.member;
+    }
+
+    @Override
+    public String visitAddressOf(Expressions.AddressOf node) {
+        if (node.member != null) {
+            return javaType(node.targetType) + ".ref_" + node.member + "(" + variable(node.name, node.slot) + ")";
+        }
+        if (node.index != null) {
+            String args = "(" + variable(node.name, node.slot) + ", " + asType(node.index, CType.INT) + ")";
+            switch (node.targetType.getElement().getKind()) {
+                case INT: return "new CRuntime.IntElement" + args;
+                case FLOAT: return "new CRuntime.DoubleElement" + args;
+                default: return "new CRuntime.CharElement" + args;
+            }
+        }
+        String cell = local(node.name, node.slot);
+        switch (node.targetType.getKind()) {
+            case INT: return "new CRuntime.IntCell(" + cell + ")";
+            case FLOAT: return "new CRuntime.DoubleCell(" + cell + ")";
+            default: return "new CRuntime.CharCell(" + cell + ")";
+        }
+    }
+
+    @Override
+    public String visitMemberPointer(Expressions.MemberPointer node) {
+        throw unsupported("'->'");
+    }
+
+    @Override
+    public String visitDeref(Expressions.Deref node) {
+        return node.pointer.accept(this) + ".get()";
+    }
+
+    @Override
+    public String visitNot(Expressions.Not node) {
+        return "!" + asBoolean(node.operand);
+    }
+
+    @Override
+    public String visitArithmetic(Expressions.Arithmetic node) {
+        if (node instanceof Expressions.PointerArithmetic) throw unsupported("aritmética de ponteiros");
+        CType type = node.getType();
+        String l = asType(node.left, type);
+        String r = asType(node.right, type);
+        switch (node.op) {
+            case ADD: return "(" + l + " + " + r + ")";
+            case SUB: return "(" + l + " - " + r + ")";
+            case MUL: return "(" + l + " * " + r + ")";
+            default: return "CRuntime.div(" + l + ", " + r + ")";
+        }
+    }
+
+    @Override
+    public String visitRelational(Expressions.Relational node) {
+        if (node.left.getType().isPointer() || node.right.getType().isPointer()) throw unsupported("comparação de ponteiros");
+        CType type = (node.left.getType() == CType.FLOAT || node.right.getType() == CType.FLOAT) ? CType.FLOAT : CType.INT;
+        String l = asType(node.left, type);
+        String r = asType(node.right, type);
+        switch (node.op) {
+            case GT: return "(" + l + " > " + r + ")";
+            case GTE: return "(" + l + " >= " + r + ")";
+            case LT: return "(" + l + " < " + r + ")";
+            case LTE: return "(" + l + " <= " + r + ")";
+            case EQ: return "(" + l + " == " + r + ")";
+            default: return "(" + l + " != " + r + ")";
+        }
+    }
+
+    @Override
+    public String visitLogicalAnd(Expressions.LogicalAnd node) {
+        return "(" + asBoolean(node.left) + " && " + asBoolean(node.right) + ")";
+    }
+
+    @Override
+    public String visitLogicalOr(Expressions.LogicalOr node) {
+        return "(" + asBoolean(node.left) + " || " + asBoolean(node.right) + ")";
+    }
+
+    @Override
+    public String visitCall(Expressions.Call node) {
+        StringBuilder sb = new StringBuilder("f_").append(node.function.getName()).append('(');
+        for (int i = 0; i < node.args.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(asType(node.args[i], node.function.getParameters().get(i).type));
+        }
+        return sb.append(')').toString();
+    }
+
+    @Override
+    public String visitIntrinsic(Expressions.Intrinsic node) {
+        if (!node.kind.header.equals("<string.h>")) throw unsupported(node.kind.name().toLowerCase() + " (memória de " + node.kind.header + ")");
+        StringBuilder sb = new StringBuilder("CStrings.").append(node.kind.name().toLowerCase()).append('(');
+        for (int i = 0; i < node.args.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(node.kind.isCount(i) ? asType(node.args[i], CType.INT) : node.args[i].accept(this));
+        }
+        return sb.append(')').toString();
+    }
+
+    // ============================================================
+    //               INSTRUÇÕES
+    // ============================================================
+
+    @Override
+    public String visitBlock(Statements.Block node) {
+        // O chamador já escreveu a indentação (e eventual prefixo) desta linha
+        out.append("{\n");
+        indent++;
+        for (StmtNode statement : node.statements) nested(statement);
+        indent--;
+        line("}");
+        return null;
+    }
+
+    private void nested(StmtNode node) {
+        if (node instanceof Statements.Block) {
+            out.append("    ".repeat(indent));
+            node.accept(this);
+        } else {
+            node.accept(this);
+        }
+    }
+
+    @Override
+    public String visitExpressionStatement(Statements.ExpressionStatement node) {
+        line(node.expression.accept(this) + ";");
+        return null;
+    }
+
+    @Override
+    public String visitDeclaration(Statements.Declaration node) {
+        String value = node.init != null ? asType(node.init, node.type) : defaultValue(node.type);
+        String name = local(node.name, node.slot);
+        if (cells.contains(node.slot)) {
+            line(javaType(node.type) + "[] " + name + " = { " + value + " };");
+        } else {
+            line(javaType(node.type) + " " + name + " = " + value + ";");
+        }
+        return null;
+    }
+
+    @Override
+    public String visitLocalAssignment(Statements.LocalAssignment node) {
+        line(variable(node.name, node.slot) + " = " + asType(node.value, node.targetType) + ";");
+        return null;
+    }
+
+    @Override
+    public String visitArrayAssignment(Statements.ArrayAssignment node) {
+        line(variable(node.name, node.slot) + "[" + asType(node.index, CType.INT) + "] = " + asType(node.value, node.elementType) + ";");
+        return null;
+    }
+
+    @Override
+    public String visitMemberAssignment(Statements.MemberAssignment node) {
+        String instance = variable(node.name, node.slot);
+        CType memberType = node.memberType;
+        if (node.instanceType.isUnion()) {
+            line(instance + ".value = " + asType(node.value, memberType) + ";");
+        } else {
+            line(instance + ".m_" + node.member + " = " + asType(node.value, memberType) + ";");
+        }
+        return null;
+    }
+
+    @Override
+    public String visitDerefAssignment(Statements.DerefAssignment node) {
+        line(node.pointer.accept(this) + ".set(" + asType(node.value, node.targetType) + ");");
+        return null;
+    }
+
+    @Override
+    public String visitIf(Statements.If node) {
+        out.append("    ".repeat(indent)).append("if (").append(condition(node.condition)).append(") ");
+        node.thenBranch.accept(this);
+        if (node.elseBranch != null) {
+            out.setLength(out.length() - 1); // junta o 'else' à chaveta de fecho
+            out.append(" else ");
+            node.elseBranch.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public String visitWhile(Statements.While node) {
+        out.append("    ".repeat(indent)).append("while (").append(condition(node.condition)).append(") ");
+        node.body.accept(this);
+        return null;
+    }
+
+    @Override
+    public String visitDoWhile(Statements.DoWhile node) {
+        out.append("    ".repeat(indent)).append("do ");
+        node.body.accept(this);
+        out.setLength(out.length() - 1);
+        out.append(" while (").append(condition(node.condition)).append(");\n");
+        return null;
+    }
+
+    @Override
+    public String visitFor(Statements.For node) {
+        // O for de C vira um bloco com a inicialização seguida de um while
+        line("{");
+        indent++;
+        if (node.init != null) node.init.accept(this);
+        String cond = node.condition != null ? condition(node.condition) : "CRuntime.cond(true)";
+        line("while (" + cond + ") {");
+        indent++;
+        nested(node.body);
+        if (node.increment != null) node.increment.accept(this);
+        indent--;
+        line("}");
+        indent--;
+        line("}");
+        return null;
+    }
+
+    @Override
+    public String visitSwitch(Statements.Switch node) {
+        line("switch (" + asType(node.selector, CType.INT) + ") {");
+        indent++;
+        for (int i = 0; i < node.caseValues.length; i++) {
+            line("case " + node.caseValues[i] + ": {");
+            indent++;
+            for (StmtNode s : node.caseBodies[i]) nested(s);
+            indent--;
+            line("}");
+        }
+        // Sem 'break' no último 'case' a execução passa para o 'default', como em C (e em Java)
+        if (node.defaultBody != null) {
+            line("default: {");
+            indent++;
+            for (StmtNode s : node.defaultBody) nested(s);
+            indent--;
+            line("}");
+        }
+        indent--;
+        line("}");
+        return null;
+    }
+
+    @Override
+    public String visitBreak(Statements.Break node) {
+        line("break;");
+        return null;
+    }
+
+    @Override
+    public String visitReturn(Statements.Return node) {
+        // 'if (true)' evita erros de código inalcançável após o return
+        if (node.value == null) line("if (true) return;");
+        else line("if (true) return " + asType(node.value, node.returnType) + ";");
+        return null;
+    }
+
+    @Override
+    public String visitPrintf(Statements.Printf node) {
+        StringBuilder sb = new StringBuilder("CRuntime.printf(FMT_").append(formats.size());
+        formats.add(node.format.getSource());
+        for (ExprNode arg : node.args) sb.append(", ").append(arg.accept(this));
+        line(sb.append(");").toString());
+        return null;
+    }
+
+    @Override
+    public String visitScanf(Statements.Scanf node) {
+        String target = variable(node.name, node.slot);
+        switch (node.kind) {
+            case INT: line("try { " + target + " = CRuntime.scanInt(); } catch (RuntimeException e) { CRuntime.error(e); }"); break;
+            case FLOAT: line("try { " + target + " = CRuntime.scanDouble(); } catch (RuntimeException e) { CRuntime.error(e); }"); break;
+            case CHAR: line("try { " + target + " = CRuntime.scanChar(); } catch (RuntimeException e) { CRuntime.error(e); }"); break;
+            default: line("CRuntime.error(" + stringLiteral("Erro de tipo no scanf ou formato não suportado: " + node.format) + ");");
+        }
+        return null;
+    }
+
+    @Override
+    public String visitGets(Statements.Gets node) {
+        if (!node.type.isArray() || node.type.getElement() != CType.CHAR) throw unsupported("'gets' sobre " + node.type);
+        line("CRuntime.gets(" + variable(node.name, node.slot) + ");");
+        return null;
+    }
+
+    @Override
+    public String visitPuts(Statements.Puts node) {
+        line("CRuntime.puts(" + stringLiteral(node.text) + ");");
+        return null;
+    }
+}
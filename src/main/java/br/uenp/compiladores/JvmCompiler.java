@@ -0,0 +1,145 @@
+package br.uenp.compiladores;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Compilação antecipada (modo --compile): gera o código Java do programa,
+ * compila-o em memória com o javac da JDK e grava um .jar executável que
+ * inclui o CRuntime. O resultado corre com 'java -jar' sem o ANTLR nem o
+ * interpretador.
+ */
+public class JvmCompiler {
+
+    // Biblioteca de suporte copiada para o .jar; não pode depender do ANTLR nem do interpretador
+    private static final Class<?>[] RUNTIME_CLASSES = { CRuntime.class, CStrings.class, PrintfFormat.class, OutputSink.class, InputReader.class };
+
+    public Map<String, byte[]> compile(Program program, String className) {
+        String source = new JavaCodeGenerator().generate(program, className);
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null) {
+            throw new RuntimeException("Erro: Compilador Java não disponível (é necessário executar com uma JDK).");
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standard = javac.getStandardFileManager(diagnostics, null, null);
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        JavaFileManager fileManager = new ForwardingJavaFileManager<>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return new ByteArrayOutputStream() {
+                            @Override
+                            public void close() {
+                                classes.put(name, toByteArray());
+                            }
+                        };
+                    }
+                };
+            }
+        };
+
+        JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(System.getProperty("java.class.path"));
+        options.add("-nowarn");
+
+        boolean ok = javac.getTask(null, fileManager, diagnostics, options, null, Collections.singletonList(unit)).call();
+        if (!ok) {
+            StringBuilder message = new StringBuilder("Erro: Falha ao compilar o código gerado:");
+            for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+                message.append("\n  linha ").append(d.getLineNumber()).append(": ").append(d.getMessage(null));
+            }
+            throw new RuntimeException(message.toString());
+        }
+        return classes;
+    }
+
+    /** Grava as classes num .jar executável, ou como ficheiros .class se o destino for um diretório. */
+    public void write(Map<String, byte[]> classes, String className, Path output) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> c : classes.entrySet()) {
+            entries.put(c.getKey().replace('.', '/') + ".class", c.getValue());
+        }
+        for (Class<?> runtime : RUNTIME_CLASSES) {
+            addRuntimeClass(entries, runtime);
+            for (Class<?> nested : runtime.getDeclaredClasses()) addRuntimeClass(entries, nested);
+        }
+
+        if (!output.toString().endsWith(".jar")) {
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                Path file = output.resolve(e.getKey());
+                Files.createDirectories(file.getParent());
+                Files.write(file, e.getValue());
+            }
+            return;
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, className);
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(output), manifest)) {
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                jar.putNextEntry(new JarEntry(e.getKey()));
+                jar.write(e.getValue());
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static void addRuntimeClass(Map<String, byte[]> entries, Class<?> type) throws IOException {
+        String resource = type.getName().replace('.', '/') + ".class";
+        try (InputStream in = JvmCompiler.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("classe de suporte não encontrada: " + resource);
+            entries.put(resource, in.readAllBytes());
+        }
+    }
+
+    /** Nome de classe Java válido a partir do nome do ficheiro-fonte (teste_novo.c -> Teste_novo). */
+    public static String classNameFor(String sourcePath) {
+        String base = Path.of(sourcePath).getFileName().toString();
+        int dot = base.lastIndexOf('.');
+        if (dot > 0) base = base.substring(0, dot);
+        StringBuilder sb = new StringBuilder();
+        for (char c : base.toCharArray()) {
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) sb.insert(0, 'C');
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+}
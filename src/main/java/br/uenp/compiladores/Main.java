@@ -1,31 +1,46 @@
 package br.uenp.compiladores;
 
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
         if (args.length == 0) {
             System.err.println("Uso: java -jar compilador.jar <arquivo_fonte.c>");
+            System.err.println("     java -jar compilador.jar --compile <arquivo_fonte.c> [-o <saida.jar>]");
+            System.err.println("     java -jar compilador.jar --batch <diretorio|arquivo.c>... [-o <dir_saida>] [-j <threads>]");
+            System.err.println("     java -jar compilador.jar --profile <arquivo_fonte.c> [-o <prefixo>]");
             System.exit(1);
         }
 
-        try {
-            String filePath = args[0];
-            CSubsetLexer lexer = new CSubsetLexer(CharStreams.fromFileName(filePath));
-            CommonTokenStream tokens = new CommonTokenStream(lexer);
-            CSubsetParser parser = new CSubsetParser(tokens);
-
-            ParseTree tree = parser.program();
+        if (args[0].equals("--compile")) {
+            compileToJar(args);
+            return;
+        }
+        if (args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+        if (args[0].equals("--profile")) {
+            runProfiled(args);
+            return;
+        }
 
-            System.out.println("Análise sintática concluída com sucesso.");
+        try {
+            Program program = compile(args[0]);
 
-            // Visitor ativado para iniciar a interpretação
-            MyVisitor visitor = new MyVisitor();
-            visitor.visit(tree);
+            // A árvore e os tokens já não são alcançáveis: só os nós rebaixados ficam em memória
+            program.run(new ExecutionContext(System.in, System.out, System.err));
 
         } catch (IOException e) {
             System.err.println("Erro ao ler o arquivo: " + e.getMessage());
@@ -36,4 +51,147 @@ public class Main {
             System.exit(1);
         }
     }
-}   
\ No newline at end of file
+
+    // Modo --compile: gera um .jar executável em vez de interpretar
+    private static void compileToJar(String[] args) {
+        if (args.length != 2 && !(args.length == 4 && args[2].equals("-o"))) {
+            System.err.println("Uso: java -jar compilador.jar --compile <arquivo_fonte.c> [-o <saida.jar>]");
+            System.exit(1);
+        }
+        String source = args[1];
+        String className = JvmCompiler.classNameFor(source);
+        Path output = Path.of(args.length == 4 ? args[3] : className + ".jar");
+
+        try {
+            Program program = compile(source);
+            JvmCompiler compiler = new JvmCompiler();
+            Map<String, byte[]> classes = compiler.compile(program, className);
+            compiler.write(classes, className, output);
+            System.out.println("Compilado para " + output + " (execute com: java -jar " + output + ")");
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Erro durante a compilação: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Modo --batch: vários programas em paralelo, cada um com a sua entrada e saída
+    private static void runBatch(String[] args) {
+        List<String> inputs = new ArrayList<>();
+        Path output = Path.of("saida_batch");
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++) {
+            if ((args[i].equals("-o") || args[i].equals("-j")) && i + 1 < args.length) {
+                if (args[i].equals("-o")) output = Path.of(args[++i]);
+                else threads = Integer.parseInt(args[++i]);
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty() || threads < 1) {
+            System.err.println("Uso: java -jar compilador.jar --batch <diretorio|arquivo.c>... [-o <dir_saida>] [-j <threads>]");
+            System.exit(1);
+        }
+
+        try {
+            List<BatchRunner.Result> results = new BatchRunner(output, threads).run(BatchRunner.sources(inputs));
+            int failed = 0;
+            for (BatchRunner.Result r : results) {
+                System.out.printf("%s: %s (%.1f ms)%n", r.source, r.ok ? "ok" : "erro", r.nanos / 1_000_000.0);
+                if (!r.ok) failed++;
+            }
+            System.out.println(results.size() + " programas, " + failed + " com erro. Resultados em " + output);
+            if (failed > 0) System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    // Modo --profile: executa com instrumentação e grava o relatório e as pilhas para flame graphs
+    private static void runProfiled(String[] args) {
+        if (args.length != 2 && !(args.length == 4 && args[2].equals("-o"))) {
+            System.err.println("Uso: java -jar compilador.jar --profile <arquivo_fonte.c> [-o <prefixo>]");
+            System.exit(1);
+        }
+        String source = args[1];
+        String prefix = args.length == 4 ? args[3] : Path.of(source).getFileName().toString().replaceFirst("\\.c$", "");
+        Path report = Path.of(prefix + ".profile.txt");
+        Path stacks = Path.of(prefix + ".collapsed");
+
+        Profiler profiler = null;
+        int status = 0;
+        try {
+            byte[] bytes = Files.readAllBytes(Path.of(source));
+            Program program = compile(bytes, source, System.out, System.err, true);
+            profiler = new Profiler(new String(bytes, StandardCharsets.UTF_8));
+            ExecutionContext context = new ExecutionContext(System.in, System.out, System.err);
+            context.setProfiler(profiler);
+            program.run(context);
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o arquivo: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Erro durante a análise: " + e.getMessage());
+            status = 1;
+        }
+
+        // O perfil é gravado mesmo que a execução termine com erro
+        if (profiler != null) {
+            try (Writer r = Files.newBufferedWriter(report); Writer s = Files.newBufferedWriter(stacks)) {
+                profiler.writeReport(r);
+                profiler.writeCollapsedStacks(s);
+                System.err.println("Perfil gravado em " + report + " e " + stacks);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o perfil: " + e.getMessage());
+                status = 1;
+            }
+        }
+        if (status != 0) System.exit(status);
+    }
+
+    public static Program compile(String filePath) throws IOException {
+        return compile(Files.readAllBytes(Path.of(filePath)), filePath, System.out, System.err);
+    }
+
+    // Análise sintática seguida do rebaixamento para nós executáveis (ou leitura da cache)
+    public static Program compile(byte[] source, String sourceName, PrintStream out, PrintStream err) {
+        return compile(source, sourceName, out, err, false);
+    }
+
+    // Com 'profile' os nós ficam instrumentados; esses programas não passam pela cache
+    public static Program compile(byte[] source, String sourceName, PrintStream out, PrintStream err, boolean profile) {
+        ProgramCache cache = profile ? null : ProgramCache.fromSystemProperties();
+        String key = cache != null ? ProgramCache.key(source) : null;
+
+        Program cached = cache != null ? cache.load(key) : null;
+        if (cached != null) {
+            // Mesma saída que uma análise completa: o programa já foi validado quando entrou na cache
+            out.println("Análise sintática concluída com sucesso.");
+            return cached;
+        }
+
+        SourceParser parser = SourceParser.fromSystemProperties(err);
+        Events.Parse parseEvent = Events.beginParse();
+        ParseTree tree = parser.parse(CharStreams.fromString(new String(source, StandardCharsets.UTF_8), sourceName));
+        Events.endParse(parseEvent, sourceName, parser.getTokenCount(), parser.usedFallbackToLL());
+        if (parser.isStatsEnabled()) parser.printStats(err);
+
+        out.println("Análise sintática concluída com sucesso.");
+
+        Events.Lower lowerEvent = Events.beginLower();
+        Program program = (Program) new MyVisitor(profile).visit(tree);
+        Events.endLower(lowerEvent, sourceName, program.getFunctions().size());
+
+        // Programas com erros recuperados pelo ANTLR não são guardados, para que os avisos reapareçam
+        if (cache != null && parser.getNumberOfErrors() == 0) {
+            cache.store(key, program);
+        }
+        return program;
+    }
+}
@@ -0,0 +1,85 @@
+package br.uenp.compiladores;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resultados memorizados das funções puras (-Dcsubset.memo=true). Os
+ * argumentos são empacotados numa chave long (int e char ocupam 32 bits, um
+ * float os 64) e cada função tem a sua tabela de mapeamento direto com
+ * -Dcsubset.memo.size entradas (por omissão 65536, arredondado para uma
+ * potência de 2): uma chave nova substitui a que ocupava a mesma posição,
+ * pelo que a memória usada é limitada.
+ *
+ * Só as funções marcadas pela PurityAnalysis passam por aqui. Uma chamada
+ * que reportou erros (ex.: índice fora dos limites) não é guardada, para
+ * que a mensagem volte a aparecer quando a chamada se repetir.
+ */
+public class MemoTable {
+
+    public static final int DEFAULT_SIZE = 1 << 16;
+
+    private final int mask;
+    private long[][] keys = new long[0][];
+    private Object[][] values = new Object[0][]; // null: posição livre
+
+    public MemoTable(int size) {
+        this.mask = Integer.highestOneBit(Math.max(1, size - 1) << 1) - 1;
+    }
+
+    /** Tabela configurada pelas propriedades do sistema, ou null se a memorização estiver desativada. */
+    public static MemoTable fromSystemProperties() {
+        if (!Boolean.getBoolean("csubset.memo")) return null;
+        return new MemoTable(Integer.getInteger("csubset.memo.size", DEFAULT_SIZE));
+    }
+
+    /** Se os parâmetros cabem numa chave de 64 bits. */
+    static boolean fitsKey(List<Symbol> parameters) {
+        int bits = 0;
+        for (Symbol p : parameters) {
+            if (p.type == CType.INT || p.type == CType.CHAR) bits += 32;
+            else if (p.type == CType.FLOAT) bits += 64;
+            else return false;
+        }
+        return bits <= 64;
+    }
+
+    /** Chave dos argumentos, já convertidos para os tipos dos parâmetros (os primeiros slots do frame). */
+    static long key(FunctionSymbol function, Object[] slots) {
+        int count = function.getParameters().size();
+        long key = 0;
+        for (int i = 0; i < count; i++) {
+            Object arg = slots[i];
+            if (arg instanceof Double) key = Double.doubleToRawLongBits((Double) arg); // Único parâmetro
+            else key = (key << 32) | (Expressions.toInt(arg) & 0xFFFFFFFFL);
+        }
+        return key;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    Object get(FunctionSymbol function, long key) {
+        int table = function.getMemoIndex();
+        if (table >= values.length || values[table] == null) return null;
+        int i = index(key);
+        return keys[table][i] == key ? values[table][i] : null;
+    }
+
+    void put(FunctionSymbol function, long key, Object value) {
+        int table = function.getMemoIndex();
+        if (table >= values.length) {
+            keys = Arrays.copyOf(keys, table + 1);
+            values = Arrays.copyOf(values, table + 1);
+        }
+        if (values[table] == null) {
+            keys[table] = new long[mask + 1];
+            values[table] = new Object[mask + 1];
+        }
+        int i = index(key);
+        keys[table][i] = key;
+        values[table][i] = value;
+    }
+}
@@ -1,35 +1,81 @@
 package br.uenp.compiladores;
 
-import java.util.Scanner;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * Interpretador para o subconjunto de C.
- * Versão Final: Sem logs de debug.
+ * Rebaixamento da árvore sintática do ANTLR para nós executáveis.
+ * Percorre a árvore uma única vez: literais são convertidos, operadores e
+ * tipos decodificados e nomes resolvidos (variáveis para slots, funções para
+ * o seu FunctionSymbol). Depois disso a árvore pode ser descartada.
  */
 public class MyVisitor extends CSubsetBaseVisitor<Object> {
 
     private SymbolTable symbolTable = new SymbolTable();
-    private Scanner inputScanner = new Scanner(System.in);
     private FunctionSymbol currentFunction = null;
+    private Set<Integer> addressTaken; // Slots da função atual cujo endereço é tomado (Resolver)
+    private final Map<FunctionSymbol, List<StmtNode>> prunedBranches = new LinkedHashMap<>(); // Ramos mortos, só para o TypeChecker
+    private final boolean profile; // --profile: instruções e corpos das funções ficam instrumentados
+    private final Set<String> includes = new HashSet<>(); // <string.h>, <stdlib.h>: as suas funções são intrínsecas
+
+    public MyVisitor() {
+        this(false);
+    }
+
+    public MyVisitor(boolean profile) {
+        this.profile = profile;
+    }
 
     // ============================================================
     //               FUNÇÕES AUXILIARES
     // ============================================================
 
-    private Number promoteToNumber(Object obj) {
-        if (obj instanceof Number) { return (Number) obj; }
-        throw new RuntimeException("Erro de tipo: esperado um número, mas recebido " + obj);
+    private ExprNode expr(ParseTree ctx) {
+        return (ExprNode) visit(ctx);
+    }
+
+    private StmtNode stmt(ParseTree ctx) {
+        return (StmtNode) visit(ctx);
+    }
+
+    private StmtNode[] statements(List<CSubsetParser.StatementContext> contexts) {
+        StmtNode[] nodes = new StmtNode[contexts.size()];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = stmt(contexts.get(i));
+        return nodes;
     }
 
-    private boolean forceBoolean(Object obj) {
-        if (obj instanceof Boolean) { return (Boolean) obj; }
-        if (obj instanceof Integer) { return ((Integer) obj) != 0; }
-        if (obj instanceof Double) { return ((Double) obj) != 0.0; }
-        if (obj instanceof Character) { return ((Character) obj) != '\0'; }
-        throw new RuntimeException("Erro de tipo: não é possível avaliar a expressão como booleana.");
+    private ExprNode[] arguments(CSubsetParser.ArgListContext ctx) {
+        if (ctx == null) return new ExprNode[0];
+        ExprNode[] nodes = new ExprNode[ctx.expression().size()];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = expr(ctx.expression(i));
+        return nodes;
+    }
+
+    private static String stripQuotes(String literal) {
+        return literal.substring(1, literal.length() - 1);
+    }
+
+    private static Expressions.Op operator(ParseTree child) {
+        switch (((TerminalNode) child).getSymbol().getType()) {
+            case CSubsetParser.PLUS: return Expressions.Op.ADD;
+            case CSubsetParser.MINUS: return Expressions.Op.SUB;
+            case CSubsetParser.STAR: return Expressions.Op.MUL;
+            case CSubsetParser.DIV: return Expressions.Op.DIV;
+            case CSubsetParser.GT: return Expressions.Op.GT;
+            case CSubsetParser.GTE: return Expressions.Op.GTE;
+            case CSubsetParser.LT: return Expressions.Op.LT;
+            case CSubsetParser.LTE: return Expressions.Op.LTE;
+            case CSubsetParser.EQ: return Expressions.Op.EQ;
+            default: return Expressions.Op.NEQ;
+        }
     }
 
     // ============================================================
@@ -37,7 +83,7 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
     // ============================================================
 
     @Override
-    public Object visitProgram(CSubsetParser.ProgramContext ctx) {
+    public Program visitProgram(CSubsetParser.ProgramContext ctx) {
         // 1. Registar Definições Globais
         for (CSubsetParser.DefineDirectiveContext defineCtx : ctx.defineDirective()) { visit(defineCtx); }
         for (CSubsetParser.IncludeDirectiveContext includeCtx : ctx.includeDirective()) { visit(includeCtx); }
@@ -45,17 +91,31 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
         for (CSubsetParser.UnionDefinitionContext unionCtx : ctx.unionDefinition()) { visit(unionCtx); }
         for (CSubsetParser.FunctionDeclarationContext funcCtx : ctx.functionDeclaration()) { visit(funcCtx); }
 
-        // 2. Encontrar e Executar a função 'main'
-        FunctionSymbol mainFunction = symbolTable.resolveFunction("main");
-        if (mainFunction == null) {
-            throw new RuntimeException("Erro: Função 'main' não encontrada.");
+        // 2. Resolver variáveis para slots e rebaixar o corpo de cada função
+        Resolver resolver = new Resolver(symbolTable);
+        for (CSubsetParser.FunctionDeclarationContext funcCtx : ctx.functionDeclaration()) {
+            FunctionSymbol function = symbolTable.resolveFunction(funcCtx.ID().getText());
+            resolver.resolveFunction(funcCtx, function);
+            currentFunction = function;
+            addressTaken = resolver.getAddressTaken();
+            StmtNode body = stmt(funcCtx.block());
+            function.setBody(profile ? new Statements.ProfiledBody(function.getName(), body) : body);
         }
-        try {
-            executeFunction(mainFunction, new ArrayList<>());
-        } catch (ReturnException re) {
-            // O main terminou normalmente
+        currentFunction = null;
+        addressTaken = null;
+
+        // 3. Verificar os tipos antes de qualquer execução
+        Program program = new Program(symbolTable.getFunctions(),
+                new ArrayList<>(symbolTable.getStructDefinitions()), new ArrayList<>(symbolTable.getUnionDefinitions()));
+        TypeChecker checker = new TypeChecker();
+        checker.check(program);
+        for (Map.Entry<FunctionSymbol, List<StmtNode>> pruned : prunedBranches.entrySet()) {
+            for (StmtNode branch : pruned.getValue()) checker.check(pruned.getKey(), branch);
         }
-        return null;
+
+        // 4. Marcar as funções puras que a MemoTable pode memorizar
+        new PurityAnalysis().analyze(program);
+        return program;
     }
 
     // ============================================================
@@ -64,95 +124,62 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
 
     @Override
     public Object visitFunctionDeclaration(CSubsetParser.FunctionDeclarationContext ctx) {
-        String funcType = ctx.type().getText();
+        CType funcType = symbolTable.resolveType(ctx.type());
         String funcName = ctx.ID().getText();
 
-        List<Map.Entry<String, String>> params = new ArrayList<>();
+        List<Symbol> params = new ArrayList<>();
         if (ctx.paramList() != null) {
             for (CSubsetParser.ParamContext paramCtx : ctx.paramList().param()) {
-                String paramType = paramCtx.type().getText();
+                CType paramType = symbolTable.resolveType(paramCtx.type());
                 String paramName = paramCtx.ID().getText();
-                params.add(Map.entry(paramType, paramName));
+                params.add(new Symbol(paramName, paramType, params.size()));
             }
         }
 
-        FunctionSymbol func = new FunctionSymbol(funcName, funcType, params, ctx.block());
+        FunctionSymbol func = new FunctionSymbol(funcName, funcType, params);
         symbolTable.addFunction(funcName, func);
         return null;
     }
 
-    private Object executeFunction(FunctionSymbol function, List<Object> args) {
-        if (function.getParameters().size() != args.size()) {
-            throw new RuntimeException("Erro: Número incorreto de argumentos para a função '" + function.getName() + "'.");
-        }
-
-        FunctionSymbol previousFunction = this.currentFunction;
-        this.currentFunction = function;
-
-        symbolTable.enterScope();
-        try {
-            for (int i = 0; i < args.size(); i++) {
-                String paramType = function.getParameters().get(i).getKey();
-                String paramName = function.getParameters().get(i).getValue();
-                Object paramValue = args.get(i);
-                symbolTable.add(paramName, paramType);
-                symbolTable.assign(paramName, paramValue);
-            }
-
-            visit(function.getBody());
-
-        } finally {
-            symbolTable.exitScope();
-            this.currentFunction = previousFunction;
-        }
-
-        if (!function.getType().equals("void")) {
-            throw new RuntimeException("Erro: Função não-void '" + function.getName() + "' chegou ao fim sem 'return'.");
-        }
-        return null;
-    }
-
     @Override
-    public Object visitFunctionCall(CSubsetParser.FunctionCallContext ctx) {
-        String funcName = ctx.ID().getText();
-        List<Object> args = new ArrayList<>();
-        if (ctx.argList() != null) {
-            for (CSubsetParser.ExpressionContext exprCtx : ctx.argList().expression()) {
-                args.add(visit(exprCtx));
+    public ExprNode visitFunctionCall(CSubsetParser.FunctionCallContext ctx) {
+        String name = ctx.ID().getText();
+        // Uma função do programa com o mesmo nome tem precedência sobre a da biblioteca
+        Expressions.Intrinsic.Kind intrinsic = symbolTable.isFunction(name) ? null : Expressions.Intrinsic.Kind.of(name);
+        if (intrinsic != null && includes.contains(intrinsic.header)) {
+            ExprNode[] args = arguments(ctx.argList());
+            if (args.length != intrinsic.arity) {
+                throw new RuntimeException("Erro: Número incorreto de argumentos para a função '" + name + "'.");
             }
+            return new Expressions.Intrinsic(intrinsic, args);
         }
-        FunctionSymbol function = symbolTable.resolveFunction(funcName);
-        try {
-            return executeFunction(function, args);
-        } catch (ReturnException re) {
-            return re.getValue();
+        FunctionSymbol function = symbolTable.resolveFunction(name);
+        ExprNode[] args = arguments(ctx.argList());
+        if (function.getParameters().size() != args.length) {
+            throw new RuntimeException("Erro: Número incorreto de argumentos para a função '" + function.getName() + "'.");
         }
+        return new Expressions.Call(function, args);
     }
 
     @Override
-    public Object visitFunctionCallStatement(CSubsetParser.FunctionCallStatementContext ctx) {
-        visit(ctx.functionCall());
-        return null;
+    public StmtNode visitFunctionCallStatement(CSubsetParser.FunctionCallStatementContext ctx) {
+        return new Statements.ExpressionStatement(expr(ctx.functionCall()));
     }
 
     @Override
-    public Object visitReturnStatement(CSubsetParser.ReturnStatementContext ctx) {
-        if (currentFunction == null) {
-            throw new RuntimeException("Erro: 'return' encontrado fora de uma função.");
-        }
-        String funcType = currentFunction.getType();
+    public StmtNode visitReturnStatement(CSubsetParser.ReturnStatementContext ctx) {
+        CType funcType = currentFunction.getType();
 
         if (ctx.expression() == null) {
-            if (!funcType.equals("void")) {
+            if (!funcType.isVoid()) {
                 throw new RuntimeException("Erro: Função não-void ("+ funcType +") deve retornar um valor.");
             }
-            throw new ReturnException(null);
+            return new Statements.Return(null, funcType);
         } else {
-            if (funcType.equals("void")) {
+            if (funcType.isVoid()) {
                 throw new RuntimeException("Erro: Função 'void' não pode retornar um valor.");
             }
-            Object returnValue = visit(ctx.expression());
-            throw new ReturnException(returnValue);
+            return new Statements.Return(expr(ctx.expression()), funcType);
         }
     }
 
@@ -161,93 +188,37 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
     // ============================================================
 
     @Override
-    public Object visitPrintfStatement(CSubsetParser.PrintfStatementContext ctx) {
-        String formatString = ctx.STRING_LITERAL().getText();
-        formatString = formatString.substring(1, formatString.length() - 1);
-
-        if (ctx.argList() != null) {
-            for (CSubsetParser.ExpressionContext exprCtx : ctx.argList().expression()) {
-                Object value = visit(exprCtx);
-
-                if (formatString.contains("%d") && value instanceof Integer) {
-                    formatString = formatString.replaceFirst("%d", value.toString());
-                } else if (formatString.contains("%f") && (value instanceof Double || value instanceof Integer)) {
-                    formatString = formatString.replaceFirst("%f", value.toString());
-                } else if (formatString.contains("%c") && value instanceof Character) {
-                    formatString = formatString.replaceFirst("%c", value.toString());
-                } else if (formatString.contains("%s") && value instanceof Object[]) {
-                    Object[] arr = (Object[]) value;
-                    StringBuilder sb = new StringBuilder();
-                    for (Object o : arr) {
-                        if (o == null || (o instanceof Character && (Character)o == '\0')) break;
-                        sb.append(o);
-                    }
-                    formatString = formatString.replaceFirst("%s", sb.toString());
-                }
-            }
-        }
-
-        formatString = formatString.replace("\\n", "\n");
-        System.out.print(formatString);
-        System.out.flush();
-        return null;
+    public StmtNode visitPrintfStatement(CSubsetParser.PrintfStatementContext ctx) {
+        String formatString = stripQuotes(ctx.STRING_LITERAL().getText());
+        return new Statements.Printf(new PrintfFormat(formatString), arguments(ctx.argList()));
     }
 
     @Override
-    public Object visitScanfStatement(CSubsetParser.ScanfStatementContext ctx) {
-        String formatString = ctx.STRING_LITERAL().getText();
-        String varName = ctx.ID().getText();
-        formatString = formatString.substring(1, formatString.length() - 1);
-        try {
-            String varType = symbolTable.getType(varName);
-            if (formatString.equals("%d") && varType.equals("int")) {
-                int value = inputScanner.nextInt();
-                symbolTable.assign(varName, value);
-            } else if (formatString.equals("%f") && varType.equals("float")) {
-                double value = inputScanner.nextDouble();
-                symbolTable.assign(varName, value);
-            } else if (formatString.equals("%c") && varType.equals("char")) {
-                char value = inputScanner.next().charAt(0);
-                symbolTable.assign(varName, value);
-            } else {
-                throw new RuntimeException("Erro de tipo no scanf ou formato não suportado: " + formatString);
-            }
-        } catch (RuntimeException e) {
-            System.err.println(e.getMessage());
+    public StmtNode visitScanfStatement(CSubsetParser.ScanfStatementContext ctx) {
+        String formatString = stripQuotes(ctx.STRING_LITERAL().getText());
+        CType varType = ctx.symbol.type;
+        Statements.Scanf.Kind kind;
+        if (formatString.equals("%d") && varType == CType.INT) {
+            kind = Statements.Scanf.Kind.INT;
+        } else if (formatString.equals("%f") && varType == CType.FLOAT) {
+            kind = Statements.Scanf.Kind.FLOAT;
+        } else if (formatString.equals("%c") && varType == CType.CHAR) {
+            kind = Statements.Scanf.Kind.CHAR;
+        } else {
+            kind = Statements.Scanf.Kind.INVALID;
         }
-        return null;
+        return new Statements.Scanf(kind, ctx.symbol, formatString);
     }
 
     @Override
-    public Object visitGetsStatement(CSubsetParser.GetsStatementContext ctx) {
-        String varName = ctx.ID().getText();
-        try {
-            Object obj = symbolTable.resolve(varName);
-            if (!(obj instanceof Object[])) {
-                throw new RuntimeException("Erro: 'gets' espera um array (string) como argumento.");
-            }
-            Object[] array = (Object[]) obj;
-
-            String input = inputScanner.next();
-
-            for (int i = 0; i < array.length && i < input.length(); i++) {
-                array[i] = input.charAt(i);
-            }
-            if (input.length() < array.length) {
-                array[input.length()] = '\0';
-            }
-        } catch (RuntimeException e) {
-            System.err.println(e.getMessage());
-        }
-        return null;
+    public StmtNode visitGetsStatement(CSubsetParser.GetsStatementContext ctx) {
+        return new Statements.Gets(ctx.symbol);
     }
 
     @Override
-    public Object visitPutsStatement(CSubsetParser.PutsStatementContext ctx) {
-        String str = ctx.STRING_LITERAL().getText();
-        str = str.substring(1, str.length() - 1).replace("\\n", "\n");
-        System.out.println(str);
-        return null;
+    public StmtNode visitPutsStatement(CSubsetParser.PutsStatementContext ctx) {
+        String str = stripQuotes(ctx.STRING_LITERAL().getText()).replace("\\n", "\n");
+        return new Statements.Puts(str);
     }
 
     // ============================================================
@@ -255,68 +226,33 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
     // ============================================================
 
     @Override
-    public Object visitSimpleDeclaration(CSubsetParser.SimpleDeclarationContext ctx) {
-        String varType = ctx.type().getText();
-        String varName = ctx.ID().getText();
-        try {
-            symbolTable.add(varName, varType);
-
-            if (ctx.LBRACKET() != null) {
-                if (ctx.ASSIGN() != null) {
-                    throw new RuntimeException("Erro: Inicialização de array na declaração não é suportada.");
-                }
-                int size = Integer.parseInt(ctx.INT().getText());
-                symbolTable.assign(varName, new Object[size]);
-            }
-            else if (ctx.ASSIGN() != null) {
-                Object value = visit(ctx.expression());
-                symbolTable.assign(varName, value);
-            }
-        } catch (RuntimeException e) {
-            System.err.println(e.getMessage());
-        }
-        return null;
+    public StmtNode visitSimpleDeclaration(CSubsetParser.SimpleDeclarationContext ctx) {
+        ExprNode init = ctx.ASSIGN() != null ? expr(ctx.expression()) : null;
+        return new Statements.Declaration(ctx.symbol, init);
     }
 
     @Override
-    public Object visitSimpleAssignment(CSubsetParser.SimpleAssignmentContext ctx) {
-        Object rhsValue = visit(ctx.expression());
+    public StmtNode visitSimpleAssignment(CSubsetParser.SimpleAssignmentContext ctx) {
+        ExprNode rhs = expr(ctx.expression());
         CSubsetParser.LvalueContext lvalue = ctx.lvalue();
-        try {
-            if (lvalue.ID() != null) {
-                String varName = lvalue.ID().getText();
-                symbolTable.assign(varName, rhsValue);
-            }
-            else if (lvalue.arrayAccess() != null) {
-                String varName = lvalue.arrayAccess().ID().getText();
-                Object arrayObj = symbolTable.resolve(varName);
-                if (!(arrayObj instanceof Object[])) throw new RuntimeException("Erro: Variável não é um array.");
-                Object[] array = (Object[]) arrayObj;
-                int index = (Integer) visit(lvalue.arrayAccess().expression());
-                array[index] = rhsValue;
-            }
-            else if (lvalue.memberAccess() != null) {
-                String instanceName = lvalue.memberAccess().ID(0).getText();
-                String memberName = lvalue.memberAccess().ID(1).getText();
-                Object obj = symbolTable.resolve(instanceName);
-                if (obj instanceof StructInstance) {
-                    ((StructInstance) obj).write(memberName, rhsValue);
-                } else if (obj instanceof UnionInstance) {
-                    ((UnionInstance) obj).write(memberName, rhsValue);
-                } else {
-                    throw new RuntimeException("Erro: Não é struct nem union.");
-                }
-            }
-            else if (lvalue.unaryExpr() != null) {
-                Object resolvedName = visit(lvalue.unaryExpr());
-                if (!(resolvedName instanceof String)) throw new RuntimeException("Erro: Desreferência inválida.");
-                String varName = (String) resolvedName;
-                symbolTable.assign(varName, rhsValue);
-            }
-        } catch (RuntimeException e) {
-            System.err.println(e.getMessage());
+        if (lvalue.ID() != null) {
+            return new Statements.LocalAssignment(lvalue.symbol, rhs);
+        }
+        else if (lvalue.arrayAccess() != null) {
+            CSubsetParser.ArrayAccessContext access = lvalue.arrayAccess();
+            if (access.symbol.type.isPointer()) return new Statements.DerefAssignment(elementPointer(access), rhs);
+            return new Statements.ArrayAssignment(access.symbol, expr(access.expression()), rhs);
+        }
+        else if (lvalue.memberAccess() != null) {
+            CSubsetParser.MemberAccessContext access = lvalue.memberAccess();
+            if (access.ARROW() != null) return new Statements.DerefAssignment(memberPointer(access), rhs);
+            String member = access.ID(1).getText();
+            memberType(access.symbol, member); // Valida o membro antes de resolver o seu deslocamento
+            return new Statements.MemberAssignment(access.symbol, member, rhs);
+        }
+        else {
+            return new Statements.DerefAssignment(expr(lvalue.unaryExpr()), rhs);
         }
-        return null;
     }
 
     // ============================================================
@@ -324,134 +260,186 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
     // ============================================================
 
     @Override
-    public Object visitUnaryExpr(CSubsetParser.UnaryExprContext ctx) {
+    public ExprNode visitExpression(CSubsetParser.ExpressionContext ctx) {
+        return expr(ctx.logicalOrExpr());
+    }
+
+    @Override
+    public ExprNode visitUnaryExpr(CSubsetParser.UnaryExprContext ctx) {
         if (ctx.NOT() != null) {
-            return !forceBoolean(visit(ctx.unaryExpr()));
+            return fold(new Expressions.Not(expr(ctx.unaryExpr())));
         } else if (ctx.AMPERSAND() != null) {
-            String varName = ctx.unaryExpr().getText();
-            return varName;
+            return addressOf(ctx.unaryExpr());
         } else if (ctx.STAR() != null) {
-            Object ptrValue = visit(ctx.unaryExpr());
-            if (!(ptrValue instanceof String)) throw new RuntimeException("Erro: Tentativa de desreferência em não-ponteiro.");
-            String varName = (String) ptrValue;
-            return symbolTable.resolve(varName);
+            ExprNode pointer = expr(ctx.unaryExpr());
+            if (!pointer.getType().isPointer()) throw new RuntimeException("Erro: Tentativa de desreferência em não-ponteiro.");
+            return new Expressions.Deref(pointer, pointer.getType().getElement());
         } else {
-            return visit(ctx.primaryExpr());
+            return expr(ctx.primaryExpr());
+        }
+    }
+
+    private ExprNode addressOf(CSubsetParser.UnaryExprContext operand) {
+        CSubsetParser.PrimaryExprContext primary = operand.primaryExpr();
+        if (primary != null && primary.symbol != null) {
+            return new Expressions.AddressOf(primary.symbol, null, CType.pointerTo(primary.symbol.type));
         }
+        if (primary != null && primary.memberAccess() != null) {
+            CSubsetParser.MemberAccessContext access = primary.memberAccess();
+            if (access.ARROW() != null) return memberPointer(access);
+            String member = access.ID(1).getText();
+            return new Expressions.AddressOf(access.symbol, member, CType.pointerTo(memberType(access.symbol, member)));
+        }
+        if (primary != null && primary.arrayAccess() != null) {
+            CSubsetParser.ArrayAccessContext access = primary.arrayAccess();
+            if (access.symbol.type.isPointer()) return elementPointer(access);
+            if (!access.symbol.type.isArray()) throw new RuntimeException("Erro: Variável '" + access.symbol.name + "' não é um array.");
+            return new Expressions.AddressOf(access.symbol, expr(access.expression()));
+        }
+        throw new RuntimeException("Erro: Operando inválido para '&'.");
     }
 
     @Override
-    public Object visitPrimaryExpr(CSubsetParser.PrimaryExprContext ctx) {
-        if (ctx.INT() != null) return Integer.parseInt(ctx.INT().getText());
-        if (ctx.FLOAT() != null) return Double.parseDouble(ctx.FLOAT().getText());
-        if (ctx.CHAR_LITERAL() != null) return ctx.CHAR_LITERAL().getText().charAt(1);
+    public ExprNode visitPrimaryExpr(CSubsetParser.PrimaryExprContext ctx) {
+        if (ctx.INT() != null) return new Expressions.Literal(Integer.parseInt(ctx.INT().getText()), CType.INT);
+        if (ctx.FLOAT() != null) return new Expressions.Literal(Double.parseDouble(ctx.FLOAT().getText()), CType.FLOAT);
+        if (ctx.CHAR_LITERAL() != null) return new Expressions.Literal(ctx.CHAR_LITERAL().getText().charAt(1), CType.CHAR);
+        if (ctx.STRING_LITERAL() != null) {
+            String text = stripQuotes(ctx.STRING_LITERAL().getText()).replace("\\n", "\n");
+            return new Expressions.Literal(CStrings.literal(text), CType.arrayOf(CType.CHAR, text.length() + 1));
+        }
 
         if (ctx.ID() != null) {
-            String name = ctx.ID().getText();
-            if (symbolTable.isDefine(name)) return symbolTable.resolveDefine(name);
-            try { return symbolTable.resolve(name); } catch (RuntimeException e) { System.err.println(e.getMessage()); return null; }
+            if (ctx.symbol == null) {
+                // Constante do #define: o valor é embutido no próprio nó
+                Object value = symbolTable.resolveDefine(ctx.ID().getText());
+                return new Expressions.Literal(value, value instanceof Integer ? CType.INT : CType.FLOAT);
+            }
+            return new Expressions.LocalRead(ctx.symbol);
         }
-        if (ctx.functionCall() != null) return visit(ctx.functionCall());
-        if (ctx.arrayAccess() != null) return visit(ctx.arrayAccess());
-        if (ctx.memberAccess() != null) return visit(ctx.memberAccess());
-        if (ctx.expression() != null) return visit(ctx.expression());
-
-        return null;
+        if (ctx.SIZEOF() != null) return new Expressions.Literal(Arena.sizeOf(symbolTable.resolveType(ctx.type())), CType.INT);
+        if (ctx.functionCall() != null) return expr(ctx.functionCall());
+        if (ctx.arrayAccess() != null) return expr(ctx.arrayAccess());
+        if (ctx.memberAccess() != null) return expr(ctx.memberAccess());
+        return expr(ctx.expression());
     }
 
     @Override
-    public Object visitMultExpr(CSubsetParser.MultExprContext ctx) {
-        Object left = visit(ctx.unaryExpr(0));
+    public ExprNode visitMultExpr(CSubsetParser.MultExprContext ctx) {
+        ExprNode left = expr(ctx.unaryExpr(0));
         for (int i = 1; i < ctx.unaryExpr().size(); i++) {
-            Object right = visit(ctx.unaryExpr(i));
-            String op = ctx.getChild(i * 2 - 1).getText();
-            Number l = promoteToNumber(left);
-            Number r = promoteToNumber(right);
-
-            if (l instanceof Double || r instanceof Double) {
-                double v1 = l.doubleValue(), v2 = r.doubleValue();
-                switch(op) {
-                    case "*": left = v1 * v2; break;
-                    case "/": if (v2 == 0.0) throw new RuntimeException("Erro: Divisão por zero."); left = v1 / v2; break;
-                }
-            } else {
-                int v1 = l.intValue(), v2 = r.intValue();
-                switch(op) {
-                    case "*": left = v1 * v2; break;
-                    case "/": if (v2 == 0) throw new RuntimeException("Erro: Divisão por zero."); left = v1 / v2; break;
-                }
-            }
+            left = fold(Expressions.Arithmetic.of(operator(ctx.getChild(i * 2 - 1)), left, expr(ctx.unaryExpr(i))));
         }
         return left;
     }
 
     @Override
-    public Object visitAddExpr(CSubsetParser.AddExprContext ctx) {
-        Object left = visit(ctx.multExpr(0));
+    public ExprNode visitAddExpr(CSubsetParser.AddExprContext ctx) {
+        ExprNode left = expr(ctx.multExpr(0));
         for (int i = 1; i < ctx.multExpr().size(); i++) {
-            Object right = visit(ctx.multExpr(i));
-            String op = ctx.getChild(i * 2 - 1).getText();
-            Number l = promoteToNumber(left);
-            Number r = promoteToNumber(right);
-
-            if (l instanceof Double || r instanceof Double) {
-                double v1 = l.doubleValue(), v2 = r.doubleValue();
-                left = op.equals("+") ? v1 + v2 : v1 - v2;
-            } else {
-                int v1 = l.intValue(), v2 = r.intValue();
-                left = op.equals("+") ? v1 + v2 : v1 - v2;
-            }
+            left = fold(Expressions.Arithmetic.of(operator(ctx.getChild(i * 2 - 1)), left, expr(ctx.multExpr(i))));
         }
         return left;
     }
 
     @Override
-    public Object visitRelExpr(CSubsetParser.RelExprContext ctx) {
-        Object left = visit(ctx.addExpr(0));
-        if (ctx.addExpr().size() < 2) return left;
-        Object right = visit(ctx.addExpr(1));
-        String op = ctx.getChild(1).getText();
-
-        if (left instanceof Number && right instanceof Number) {
-            double v1 = ((Number)left).doubleValue();
-            double v2 = ((Number)right).doubleValue();
-            switch (op) {
-                case ">": return v1 > v2; case ">=": return v1 >= v2;
-                case "<": return v1 < v2; case "<=": return v1 <= v2;
-                case "==": return v1 == v2; case "!=": return v1 != v2;
+    public ExprNode visitRelExpr(CSubsetParser.RelExprContext ctx) {
+        ExprNode left = expr(ctx.addExpr(0));
+        for (int i = 1; i < ctx.addExpr().size(); i++) {
+            left = fold(Expressions.Relational.of(operator(ctx.getChild(i * 2 - 1)), left, expr(ctx.addExpr(i))));
+        }
+        return left;
+    }
+
+    /**
+     * Dobragem de constantes: uma operação cujos operandos são todos literais
+     * (incluindo constantes de #define, já embutidas) é avaliada aqui, uma
+     * única vez, e substituída pelo literal do resultado. Uma divisão por zero
+     * não é dobrada, para que o erro continue a surgir em execução. As
+     * comparações e o '!' dão o int 0 ou 1, como em C.
+     */
+    private static ExprNode fold(ExprNode node) {
+        try {
+            if (node instanceof Expressions.Arithmetic) {
+                Expressions.Arithmetic a = (Expressions.Arithmetic) node;
+                if (!(a.left instanceof Expressions.Literal && a.right instanceof Expressions.Literal)) return node;
+                return new Expressions.Literal(node.eval(null), node.getType());
+            }
+            if (node instanceof Expressions.Relational) {
+                Expressions.Relational r = (Expressions.Relational) node;
+                if (!(r.left instanceof Expressions.Literal && r.right instanceof Expressions.Literal)) return node;
+                return new Expressions.Literal(node.evalInt(null), CType.INT);
             }
-        } else if (left instanceof Character && right instanceof Character) {
-            char v1 = (Character)left;
-            char v2 = (Character)right;
-            switch (op) {
-                case ">": return v1 > v2; case ">=": return v1 >= v2;
-                case "<": return v1 < v2; case "<=": return v1 <= v2;
-                case "==": return v1 == v2; case "!=": return v1 != v2;
+            if (node instanceof Expressions.Not && ((Expressions.Not) node).operand instanceof Expressions.Literal) {
+                return new Expressions.Literal(node.evalBoolean(null) ? 1 : 0, CType.INT);
             }
+        } catch (RuntimeException e) {
+            // Divisão por zero: fica para a execução
         }
-        throw new RuntimeException("Erro de tipo na comparação.");
+        return node;
     }
 
     @Override
-    public Object visitLogicalAndExpr(CSubsetParser.LogicalAndExprContext ctx) {
-        if (ctx.relExpr().size() < 2) return visit(ctx.relExpr(0));
-        Object left = visit(ctx.relExpr(0));
-        if (!forceBoolean(left)) return false;
+    public ExprNode visitLogicalAndExpr(CSubsetParser.LogicalAndExprContext ctx) {
+        ExprNode left = expr(ctx.relExpr(0));
         for (int i = 1; i < ctx.relExpr().size(); i++) {
-            if (!forceBoolean(visit(ctx.relExpr(i)))) return false;
+            left = new Expressions.LogicalAnd(left, expr(ctx.relExpr(i)));
         }
-        return true;
+        return left;
     }
 
     @Override
-    public Object visitLogicalOrExpr(CSubsetParser.LogicalOrExprContext ctx) {
-        if (ctx.logicalAndExpr().size() < 2) return visit(ctx.logicalAndExpr(0));
-        Object left = visit(ctx.logicalAndExpr(0));
-        if (forceBoolean(left)) return true;
+    public ExprNode visitLogicalOrExpr(CSubsetParser.LogicalOrExprContext ctx) {
+        ExprNode left = expr(ctx.logicalAndExpr(0));
         for (int i = 1; i < ctx.logicalAndExpr().size(); i++) {
-            if (forceBoolean(visit(ctx.logicalAndExpr(i)))) return true;
+            left = new Expressions.LogicalOr(left, expr(ctx.logicalAndExpr(i)));
+        }
+        return left;
+    }
+
+    @Override
+    public ExprNode visitArrayAccess(CSubsetParser.ArrayAccessContext ctx) {
+        CType arrayType = ctx.symbol.type;
+        if (arrayType.isPointer()) return new Expressions.Deref(elementPointer(ctx), arrayType.getElement());
+        if (!arrayType.isArray()) throw new RuntimeException("Erro: Variável '" + ctx.symbol.name + "' não é um array.");
+        return new Expressions.ArrayRead(ctx.symbol, expr(ctx.expression()), arrayType.getElement());
+    }
+
+    // p[i] com p ponteiro: *(p + i)
+    private ExprNode elementPointer(CSubsetParser.ArrayAccessContext ctx) {
+        return Expressions.Arithmetic.of(Expressions.Op.ADD, new Expressions.LocalRead(ctx.symbol), expr(ctx.expression()));
+    }
+
+    @Override
+    public ExprNode visitMemberAccess(CSubsetParser.MemberAccessContext ctx) {
+        String member = ctx.ID(1).getText();
+        if (ctx.ARROW() != null) {
+            ExprNode pointer = memberPointer(ctx);
+            return new Expressions.Deref(pointer, pointer.getType().getElement());
         }
-        return false;
+        return new Expressions.MemberRead(ctx.symbol, member, memberType(ctx.symbol, member));
+    }
+
+    // p->membro: ponteiro para o membro da struct/union apontada por p
+    private ExprNode memberPointer(CSubsetParser.MemberAccessContext ctx) {
+        Symbol pointer = ctx.symbol;
+        String member = ctx.ID(1).getText();
+        if (!pointer.type.isPointer() || !pointer.type.getElement().isAggregate()) {
+            throw new RuntimeException("Erro: '" + pointer.name + "' não é ponteiro para struct/union.");
+        }
+        if (!pointer.type.getElement().getDefinition().hasMember(member)) {
+            throw new RuntimeException("Erro: " + (pointer.type.getElement().isStruct() ? "Struct" : "Union") + " não possui membro '" + member + "'.");
+        }
+        return new Expressions.MemberPointer(new Expressions.LocalRead(pointer), member);
+    }
+
+    private CType memberType(Symbol instance, String member) {
+        if (!instance.type.isAggregate()) throw new RuntimeException("Erro: '" + instance.name + "' não é struct/union.");
+        StructDefinition definition = instance.type.getDefinition();
+        if (!definition.hasMember(member)) {
+            throw new RuntimeException("Erro: " + (instance.type.isStruct() ? "Struct" : "Union") + " não possui membro '" + member + "'.");
+        }
+        return definition.getMemberType(member);
     }
 
     // ============================================================
@@ -461,100 +449,115 @@ public class MyVisitor extends CSubsetBaseVisitor<Object> {
     @Override
     public Object visitStructDefinition(CSubsetParser.StructDefinitionContext ctx) {
         String name = ctx.ID().getText();
-        StructDefinition def = new StructDefinition();
-        for (CSubsetParser.StructMemberContext m : ctx.structMember()) {
-            def.addMember(m.ID().getText(), m.type().getText());
-        }
-        symbolTable.addStructDefinition(name, def);
+        StructDefinition def = new StructDefinition(name);
+        symbolTable.addStructDefinition(name, def); // Já registada para os membros 'struct X *' (listas, árvores)
+        addMembers(def, ctx.structMember());
         return null;
     }
 
     @Override
     public Object visitUnionDefinition(CSubsetParser.UnionDefinitionContext ctx) {
         String name = ctx.ID().getText();
-        StructDefinition def = new StructDefinition();
-        for (CSubsetParser.StructMemberContext m : ctx.structMember()) {
-            def.addMember(m.ID().getText(), m.type().getText());
-        }
+        StructDefinition def = new StructDefinition(name, true);
         symbolTable.addUnionDefinition(name, def);
+        addMembers(def, ctx.structMember());
         return null;
     }
 
+    private void addMembers(StructDefinition def, List<CSubsetParser.StructMemberContext> members) {
+        for (CSubsetParser.StructMemberContext m : members) {
+            CType type = symbolTable.resolveType(m.type());
+            if (type.isAggregate() && type.getDefinition() == def) {
+                throw new RuntimeException("Erro: '" + def.getName() + "' não pode conter-se a si própria (use um ponteiro).");
+            }
+            def.addMember(m.ID().getText(), type);
+        }
+    }
+
     @Override
     public Object visitDefineDirective(CSubsetParser.DefineDirectiveContext ctx) {
         String name = ctx.ID().getText();
-        Object val = (ctx.INT()!=null) ? Integer.parseInt(ctx.INT().getText()) : Double.parseDouble(ctx.FLOAT().getText());
+        // if/else em vez de '?:', que promoveria o Integer para Double
+        Object val;
+        if (ctx.INT() != null) val = Integer.parseInt(ctx.INT().getText());
+        else val = Double.parseDouble(ctx.FLOAT().getText());
         symbolTable.addDefine(name, val);
         return null;
     }
 
     @Override
     public Object visitIncludeDirective(CSubsetParser.IncludeDirectiveContext ctx) {
+        includes.add(ctx.INCLUDE_HEADER().getText());
         return null;
     }
 
-    @Override public Object visitArrayAccess(CSubsetParser.ArrayAccessContext ctx) {
-        try {
-            Object[] arr = (Object[]) symbolTable.resolve(ctx.ID().getText());
-            return arr[(Integer)visit(ctx.expression())];
-        } catch (Exception e) { System.err.println(e.getMessage()); return null; }
-    }
-    @Override public Object visitMemberAccess(CSubsetParser.MemberAccessContext ctx) {
-        try {
-            Object obj = symbolTable.resolve(ctx.ID(0).getText());
-            String member = ctx.ID(1).getText();
-            if (obj instanceof StructInstance) return ((StructInstance)obj).read(member);
-            if (obj instanceof UnionInstance) return ((UnionInstance)obj).read(member);
-            throw new RuntimeException("Erro: Não é struct/union.");
-        } catch (Exception e) { System.err.println(e.getMessage()); return null; }
-    }
-
-    @Override public Object visitDeclaration(CSubsetParser.DeclarationContext ctx) { return visit(ctx.simpleDeclaration()); }
-    @Override public Object visitAssignment(CSubsetParser.AssignmentContext ctx) { return visit(ctx.simpleAssignment()); }
-
-    @Override public Object visitBlock(CSubsetParser.BlockContext ctx) {
-        symbolTable.enterScope();
-        Object res = super.visitChildren(ctx);
-        symbolTable.exitScope();
-        return res;
-    }
+    // ============================================================
+    //               INSTRUÇÕES
+    // ============================================================
 
-    @Override public Object visitIfStatement(CSubsetParser.IfStatementContext ctx) {
-        if (forceBoolean(visit(ctx.expression()))) visit(ctx.block(0));
-        else if (ctx.ELSE() != null) visit(ctx.block(1));
-        return null;
-    }
-    @Override public Object visitWhileStatement(CSubsetParser.WhileStatementContext ctx) {
-        while (forceBoolean(visit(ctx.expression()))) visit(ctx.block());
-        return null;
-    }
-    @Override public Object visitDoWhileStatement(CSubsetParser.DoWhileStatementContext ctx) {
-        do { visit(ctx.block()); } while (forceBoolean(visit(ctx.expression())));
-        return null;
-    }
-    @Override public Object visitForStatement(CSubsetParser.ForStatementContext ctx) {
-        symbolTable.enterScope();
-        if (ctx.init != null) visit(ctx.init);
-        while (ctx.cond == null || forceBoolean(visit(ctx.cond))) {
-            visit(ctx.block());
-            if (ctx.inc != null) visit(ctx.inc);
+    @Override public StmtNode visitStatement(CSubsetParser.StatementContext ctx) {
+        StmtNode statement = stmt(ctx.getChild(0));
+        if (!profile || statement instanceof Statements.Block) return statement;
+        return new Statements.ProfiledLine(ctx.getStart().getLine(), statement);
+    }
+    @Override public StmtNode visitDeclaration(CSubsetParser.DeclarationContext ctx) { return stmt(ctx.simpleDeclaration()); }
+    @Override public StmtNode visitAssignment(CSubsetParser.AssignmentContext ctx) { return stmt(ctx.simpleAssignment()); }
+    @Override public StmtNode visitForInit(CSubsetParser.ForInitContext ctx) { return stmt(ctx.getChild(0)); }
+
+    @Override public StmtNode visitBlock(CSubsetParser.BlockContext ctx) {
+        return new Statements.Block(statements(ctx.statement()));
+    }
+
+    @Override public StmtNode visitIfStatement(CSubsetParser.IfStatementContext ctx) {
+        ExprNode condition = expr(ctx.expression());
+        // Os dois ramos são sempre rebaixados e verificados, para que os erros do ramo morto continuem a ser detetados
+        StmtNode thenBranch = stmt(ctx.block(0));
+        StmtNode elseBranch = ctx.ELSE() != null ? stmt(ctx.block(1)) : null;
+        if (condition instanceof Expressions.Literal) {
+            // Condição constante (ex.: 'if (DEBUG)'): só o ramo escolhido fica na árvore; o outro vai só para o TypeChecker
+            boolean taken = condition.evalBoolean(null);
+            StmtNode dead = taken ? elseBranch : thenBranch;
+            if (dead != null) prunedBranches.computeIfAbsent(currentFunction, f -> new ArrayList<>()).add(dead);
+            if (taken) return thenBranch;
+            return elseBranch != null ? elseBranch : new Statements.Block(new StmtNode[0]);
         }
-        symbolTable.exitScope();
-        return null;
-    }
-    @Override public Object visitSwitchStatement(CSubsetParser.SwitchStatementContext ctx) {
-        int val = (Integer) visit(ctx.expression());
-        boolean found = false, brk = false;
-        for (CSubsetParser.CaseBlockContext c : ctx.caseBlock()) {
-            if (found || val == Integer.parseInt(c.INT().getText())) {
-                found = true;
-                for (CSubsetParser.StatementContext s : c.statement()) visit(s);
-                if (c.BREAK() != null) { brk = true; break; }
+        return new Statements.If(condition, thenBranch, elseBranch);
+    }
+    @Override public StmtNode visitWhileStatement(CSubsetParser.WhileStatementContext ctx) {
+        return new Statements.While(expr(ctx.expression()), stmt(ctx.block()));
+    }
+    @Override public StmtNode visitDoWhileStatement(CSubsetParser.DoWhileStatementContext ctx) {
+        return new Statements.DoWhile(stmt(ctx.block()), expr(ctx.expression()));
+    }
+    @Override public StmtNode visitForStatement(CSubsetParser.ForStatementContext ctx) {
+        StmtNode init = ctx.init != null ? stmt(ctx.init) : null;
+        ExprNode cond = ctx.cond != null ? expr(ctx.cond) : null;
+        StmtNode inc = ctx.inc != null ? stmt(ctx.inc) : null;
+        return new Statements.For(init, cond, inc, stmt(ctx.block()), addressTaken);
+    }
+    @Override public StmtNode visitSwitchStatement(CSubsetParser.SwitchStatementContext ctx) {
+        List<CSubsetParser.CaseBlockContext> cases = ctx.caseBlock();
+        int[] values = new int[cases.size()];
+        StmtNode[][] bodies = new StmtNode[cases.size()][];
+        for (int i = 0; i < values.length; i++) {
+            CSubsetParser.CaseBlockContext c = cases.get(i);
+            values[i] = Integer.parseInt(c.INT().getText());
+            for (int j = 0; j < i; j++) {
+                if (values[j] == values[i]) throw new RuntimeException("Erro: Valor 'case " + values[i] + "' repetido no switch.");
             }
+            bodies[i] = caseBody(c.statement(), c.BREAK() != null);
         }
-        if (!found && !brk && ctx.defaultBlock() != null) {
-            for (CSubsetParser.StatementContext s : ctx.defaultBlock().statement()) visit(s);
-        }
-        return null;
+        CSubsetParser.DefaultBlockContext d = ctx.defaultBlock();
+        StmtNode[] defaultBody = d != null ? caseBody(d.statement(), d.BREAK() != null) : null;
+        return new Statements.Switch(expr(ctx.expression()), values, bodies, defaultBody);
+    }
+
+    // O 'break' final do bloco vira um nó Break no fim do corpo
+    private StmtNode[] caseBody(List<CSubsetParser.StatementContext> contexts, boolean hasBreak) {
+        StmtNode[] body = statements(contexts);
+        if (!hasBreak) return body;
+        StmtNode[] withBreak = Arrays.copyOf(body, body.length + 1);
+        withBreak[body.length] = new Statements.Break();
+        return withBreak;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package br.uenp.compiladores;
+
+/**
+ * Percorre todos os nós filhos sem produzir resultado. Os passos de análise
+ * estendem esta classe e sobrescrevem apenas os nós que lhes interessam.
+ */
+public abstract class NodeScanner implements NodeVisitor<Void> {
+
+    protected void scan(ExprNode node) {
+        if (node != null) node.accept(this);
+    }
+
+    protected void scan(StmtNode node) {
+        if (node != null) node.accept(this);
+    }
+
+    protected void scan(ExprNode[] nodes) {
+        for (ExprNode node : nodes) scan(node);
+    }
+
+    protected void scan(StmtNode[] nodes) {
+        if (nodes == null) return;
+        for (StmtNode node : nodes) scan(node);
+    }
+
+    // --- Expressões ---
+
+    @Override public Void visitLiteral(Expressions.Literal node) { return null; }
+    @Override public Void visitLocalRead(Expressions.LocalRead node) { return null; }
+    @Override public Void visitArrayRead(Expressions.ArrayRead node) { scan(node.index); return null; }
+    @Override public Void visitMemberRead(Expressions.MemberRead node) { return null; }
+    @Override public Void visitAddressOf(Expressions.AddressOf node) { scan(node.index); return null; }
+    @Override public Void visitDeref(Expressions.Deref node) { scan(node.pointer); return null; }
+    @Override public Void visitMemberPointer(Expressions.MemberPointer node) { scan(node.pointer); return null; }
+    @Override public Void visitNot(Expressions.Not node) { scan(node.operand); return null; }
+    @Override public Void visitArithmetic(Expressions.Arithmetic node) { scan(node.left); scan(node.right); return null; }
+    @Override public Void visitRelational(Expressions.Relational node) { scan(node.left); scan(node.right); return null; }
+    @Override public Void visitLogicalAnd(Expressions.LogicalAnd node) { scan(node.left); scan(node.right); return null; }
+    @Override public Void visitLogicalOr(Expressions.LogicalOr node) { scan(node.left); scan(node.right); return null; }
+    @Override public Void visitCall(Expressions.Call node) { scan(node.args); return null; }
+    @Override public Void visitIntrinsic(Expressions.Intrinsic node) { scan(node.args); return null; }
+
+    // --- Instruções ---
+
+    @Override public Void visitBlock(Statements.Block node) { scan(node.statements); return null; }
+    @Override public Void visitExpressionStatement(Statements.ExpressionStatement node) { scan(node.expression); return null; }
+    @Override public Void visitDeclaration(Statements.Declaration node) { scan(node.init); return null; }
+    @Override public Void visitLocalAssignment(Statements.LocalAssignment node) { scan(node.value); return null; }
+    @Override public Void visitArrayAssignment(Statements.ArrayAssignment node) { scan(node.value); scan(node.index); return null; }
+    @Override public Void visitMemberAssignment(Statements.MemberAssignment node) { scan(node.value); return null; }
+    @Override public Void visitDerefAssignment(Statements.DerefAssignment node) { scan(node.value); scan(node.pointer); return null; }
+    @Override public Void visitIf(Statements.If node) { scan(node.condition); scan(node.thenBranch); scan(node.elseBranch); return null; }
+    @Override public Void visitWhile(Statements.While node) { scan(node.condition); scan(node.body); return null; }
+    @Override public Void visitDoWhile(Statements.DoWhile node) { scan(node.body); scan(node.condition); return null; }
+    @Override public Void visitFor(Statements.For node) { scan(node.init); scan(node.condition); scan(node.body); scan(node.increment); return null; }
+
+    @Override
+    public Void visitSwitch(Statements.Switch node) {
+        scan(node.selector);
+        for (StmtNode[] body : node.caseBodies) scan(body);
+        scan(node.defaultBody);
+        return null;
+    }
+
+    @Override public Void visitBreak(Statements.Break node) { return null; }
+    @Override public Void visitReturn(Statements.Return node) { scan(node.value); return null; }
+    @Override public Void visitPrintf(Statements.Printf node) { scan(node.args); return null; }
+    @Override public Void visitScanf(Statements.Scanf node) { return null; }
+    @Override public Void visitGets(Statements.Gets node) { return null; }
+    @Override public Void visitPuts(Statements.Puts node) { return null; }
+}
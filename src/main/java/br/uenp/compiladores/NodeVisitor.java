@@ -0,0 +1,44 @@
+package br.uenp.compiladores;
+
+/**
+ * Visitante sobre a árvore de nós executáveis, usado pelos passos que
+ * analisam ou traduzem o programa já rebaixado (ex.: geração de bytecode JVM).
+ */
+public interface NodeVisitor<R> {
+
+    // --- Expressões ---
+    R visitLiteral(Expressions.Literal node);
+    R visitLocalRead(Expressions.LocalRead node);
+    R visitArrayRead(Expressions.ArrayRead node);
+    R visitMemberRead(Expressions.MemberRead node);
+    R visitAddressOf(Expressions.AddressOf node);
+    R visitDeref(Expressions.Deref node);
+    R visitMemberPointer(Expressions.MemberPointer node);
+    R visitNot(Expressions.Not node);
+    R visitArithmetic(Expressions.Arithmetic node);
+    R visitRelational(Expressions.Relational node);
+    R visitLogicalAnd(Expressions.LogicalAnd node);
+    R visitLogicalOr(Expressions.LogicalOr node);
+    R visitCall(Expressions.Call node);
+    R visitIntrinsic(Expressions.Intrinsic node);
+
+    // --- Instruções ---
+    R visitBlock(Statements.Block node);
+    R visitExpressionStatement(Statements.ExpressionStatement node);
+    R visitDeclaration(Statements.Declaration node);
+    R visitLocalAssignment(Statements.LocalAssignment node);
+    R visitArrayAssignment(Statements.ArrayAssignment node);
+    R visitMemberAssignment(Statements.MemberAssignment node);
+    R visitDerefAssignment(Statements.DerefAssignment node);
+    R visitIf(Statements.If node);
+    R visitWhile(Statements.While node);
+    R visitDoWhile(Statements.DoWhile node);
+    R visitFor(Statements.For node);
+    R visitSwitch(Statements.Switch node);
+    R visitBreak(Statements.Break node);
+    R visitReturn(Statements.Return node);
+    R visitPrintf(Statements.Printf node);
+    R visitScanf(Statements.Scanf node);
+    R visitGets(Statements.Gets node);
+    R visitPuts(Statements.Puts node);
+}
@@ -0,0 +1,46 @@
+package br.uenp.compiladores;
+
+import java.io.PrintStream;
+
+/**
+ * Saída padrão com buffer: o texto acumula-se em memória e só é escrito no
+ * destino quando atinge o limite, antes de uma leitura bloqueante (para que
+ * os prompts apareçam), antes de uma mensagem de erro e no fim do programa.
+ * O limite é configurável com -Dcsubset.output.buffer=<caracteres>.
+ */
+public final class OutputSink {
+
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("csubset.output.buffer", 64 * 1024);
+
+    private final PrintStream target;
+    private final int threshold;
+    private final StringBuilder buffer;
+
+    public OutputSink(PrintStream target) {
+        this(target, DEFAULT_THRESHOLD);
+    }
+
+    public OutputSink(PrintStream target, int threshold) {
+        this.target = target;
+        this.threshold = Math.max(threshold, 1);
+        this.buffer = new StringBuilder(Math.min(this.threshold, 64 * 1024) + 256);
+    }
+
+    public void printf(PrintfFormat format, Object[] values) {
+        format.appendTo(buffer, values);
+        if (buffer.length() >= threshold) flush();
+    }
+
+    public void println(String text) {
+        buffer.append(text).append('\n');
+        if (buffer.length() >= threshold) flush();
+    }
+
+    public void flush() {
+        if (buffer.length() > 0) {
+            target.append(buffer);
+            buffer.setLength(0);
+        }
+        target.flush();
+    }
+}
@@ -0,0 +1,126 @@
+package br.uenp.compiladores;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Formato de printf pré-compilado: o texto é dividido uma única vez em
+ * segmentos literais (com os escapes já decodificados) e conversões %d, %f,
+ * %c e %s. Partilhado pelo interpretador e pelos programas compilados.
+ *
+ * Cada argumento ocupa a primeira conversão livre compatível com o seu tipo
+ * (um int pode ocupar um %f se já não houver %d); conversões sem argumento
+ * são impressas tal como estão no formato.
+ */
+public final class PrintfFormat implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String source;
+    private final String[] segments;  // Texto literal, ou o próprio especificador ("%d") numa conversão
+    private final char[] conversions; // 'd', 'f', 'c', 's', ou 0 num segmento literal
+    private final int conversionCount;
+
+    public PrintfFormat(String source) {
+        this.source = source;
+        List<String> texts = new ArrayList<>();
+        StringBuilder kinds = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            char next = i + 1 < source.length() ? source.charAt(i + 1) : 0;
+            if (c == '%' && (next == 'd' || next == 'f' || next == 'c' || next == 's')) {
+                if (literal.length() > 0) {
+                    texts.add(literal.toString());
+                    kinds.append((char) 0);
+                    literal.setLength(0);
+                }
+                texts.add("%" + next);
+                kinds.append(next);
+                i++;
+            } else if (c == '\\' && next != 0) {
+                literal.append(escape(next));
+                i++;
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            texts.add(literal.toString());
+            kinds.append((char) 0);
+        }
+        this.segments = texts.toArray(new String[0]);
+        this.conversions = kinds.toString().toCharArray();
+        int count = 0;
+        for (char k : conversions) if (k != 0) count++;
+        this.conversionCount = count;
+    }
+
+    private static String escape(char c) {
+        switch (c) {
+            case 'n': return "\n";
+            case 't': return "\t";
+            case '\\': return "\\";
+            case '"': return "\"";
+            default: return "\\" + c;
+        }
+    }
+
+    /** Texto original do formato, sem aspas e com os escapes por decodificar. */
+    public String getSource() {
+        return source;
+    }
+
+    public void appendTo(StringBuilder out, Object[] values) {
+        if (conversionCount == 0 || values.length == 0) {
+            for (String segment : segments) out.append(segment);
+            return;
+        }
+
+        // Atribui cada argumento, pela ordem, à primeira conversão livre compatível
+        Object[] assigned = new Object[conversions.length];
+        for (Object value : values) {
+            int target = -1;
+            if (value instanceof Integer) {
+                target = firstFree(assigned, 'd');
+                if (target < 0) target = firstFree(assigned, 'f');
+            } else if (value instanceof Double) {
+                target = firstFree(assigned, 'f');
+            } else if (value instanceof Character) {
+                target = firstFree(assigned, 'c');
+            } else if (value instanceof char[]) {
+                target = firstFree(assigned, 's');
+            }
+            if (target >= 0) assigned[target] = value;
+        }
+
+        for (int i = 0; i < segments.length; i++) {
+            Object value = assigned[i];
+            if (value == null) {
+                out.append(segments[i]);
+            } else if (value instanceof Integer) {
+                out.append((int) (Integer) value);
+            } else if (value instanceof Double) {
+                out.append((double) (Double) value);
+            } else if (value instanceof Character) {
+                out.append((char) (Character) value);
+            } else {
+                appendCString(out, (char[]) value);
+            }
+        }
+    }
+
+    private int firstFree(Object[] assigned, char kind) {
+        for (int i = 0; i < conversions.length; i++) {
+            if (conversions[i] == kind && assigned[i] == null) return i;
+        }
+        return -1;
+    }
+
+    // Uma string C termina no primeiro '\0'
+    private static void appendCString(StringBuilder out, char[] array) {
+        int length = 0;
+        while (length < array.length && array[length] != '\0') length++;
+        out.append(array, 0, length);
+    }
+}
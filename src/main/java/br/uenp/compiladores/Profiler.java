@@ -0,0 +1,158 @@
+package br.uenp.compiladores;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dados do modo --profile: por função, o número de chamadas e o tempo
+ * inclusivo (com as funções chamadas) e exclusivo (só o próprio corpo); por
+ * linha do código fonte, o número de instruções executadas; e a árvore de
+ * chamadas, escrita no formato "collapsed stack" (uma linha 'main;f;g N' por
+ * caminho, com N em microssegundos de tempo exclusivo) lido pelas
+ * ferramentas de flame graphs.
+ *
+ * Os dados chegam dos nós ProfiledLine e ProfiledBody, que o MyVisitor só
+ * cria neste modo: sem --profile o programa não tem instrumentação.
+ */
+public class Profiler {
+
+    // Caminhos mais profundos são somados ao nó deste nível (o ficheiro collapsed cresceria com o quadrado da profundidade)
+    private static final int MAX_PATH_DEPTH = 256;
+
+    private static final class FunctionStats {
+        final String name;
+        long calls, inclusiveNanos, exclusiveNanos;
+        int active; // Chamadas em curso: numa recursão, só a mais externa soma o tempo inclusivo
+
+        FunctionStats(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class CallPath {
+        final String name;
+        final CallPath parent;
+        final int depth;
+        final Map<String, CallPath> children = new LinkedHashMap<>();
+        long selfNanos;
+
+        CallPath(String name, CallPath parent) {
+            this.name = name;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+    }
+
+    private final String[] sourceLines;
+    private long[] lineCounts = new long[64];
+    private final Map<String, FunctionStats> functions = new LinkedHashMap<>();
+    private final CallPath root = new CallPath(null, null);
+
+    // Chamadas em curso
+    private FunctionStats[] stats = new FunctionStats[64];
+    private CallPath[] paths = new CallPath[64];
+    private long[] starts = new long[64];
+    private long[] childNanos = new long[64];
+    private int depth;
+    private final long startTime = System.nanoTime();
+
+    public Profiler(String source) {
+        this.sourceLines = source.split("\r?\n", -1);
+    }
+
+    void countLine(int line) {
+        if (line >= lineCounts.length) lineCounts = Arrays.copyOf(lineCounts, Math.max(line + 1, lineCounts.length * 2));
+        lineCounts[line]++;
+    }
+
+    void enter(String function) {
+        if (depth == stats.length) {
+            stats = Arrays.copyOf(stats, depth * 2);
+            paths = Arrays.copyOf(paths, depth * 2);
+            starts = Arrays.copyOf(starts, depth * 2);
+            childNanos = Arrays.copyOf(childNanos, depth * 2);
+        }
+        FunctionStats s = functions.computeIfAbsent(function, FunctionStats::new);
+        s.calls++;
+        s.active++;
+        CallPath parent = depth == 0 ? root : paths[depth - 1];
+        stats[depth] = s;
+        paths[depth] = parent.depth < MAX_PATH_DEPTH
+                ? parent.children.computeIfAbsent(function, name -> new CallPath(name, parent))
+                : parent;
+        childNanos[depth] = 0;
+        starts[depth] = System.nanoTime();
+        depth++;
+    }
+
+    void exit() {
+        long now = System.nanoTime();
+        depth--;
+        long elapsed = now - starts[depth];
+        long self = elapsed - childNanos[depth];
+        FunctionStats s = stats[depth];
+        s.exclusiveNanos += self;
+        if (--s.active == 0) s.inclusiveNanos += elapsed;
+        paths[depth].selfNanos += self;
+        stats[depth] = null;
+        paths[depth] = null;
+        if (depth > 0) childNanos[depth - 1] += elapsed;
+    }
+
+    // ============================================================
+    //               RELATÓRIOS
+    // ============================================================
+
+    public void writeReport(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        long total = System.nanoTime() - startTime;
+        out.printf("Perfil de execução (tempo total: %.3f ms)%n%n", millis(total));
+
+        List<FunctionStats> byTime = new ArrayList<>(functions.values());
+        byTime.sort((a, b) -> Long.compare(b.exclusiveNanos, a.exclusiveNanos));
+        out.printf("%-24s %12s %16s %16s %8s%n", "Função", "Chamadas", "Inclusivo (ms)", "Exclusivo (ms)", "% excl.");
+        for (FunctionStats s : byTime) {
+            out.printf("%-24s %12d %16.3f %16.3f %7.1f%%%n", s.name, s.calls,
+                    millis(s.inclusiveNanos), millis(s.exclusiveNanos), total > 0 ? 100.0 * s.exclusiveNanos / total : 0.0);
+        }
+
+        out.printf("%nExecuções por linha:%n");
+        out.printf("%6s %12s  %s%n", "Linha", "Execuções", "Código");
+        for (int line = 1; line < lineCounts.length; line++) {
+            if (lineCounts[line] == 0) continue;
+            String text = line <= sourceLines.length ? sourceLines[line - 1].trim() : "";
+            out.printf("%6d %12d  %s%n", line, lineCounts[line], text);
+        }
+        out.flush();
+    }
+
+    public void writeCollapsedStacks(Writer writer) throws IOException {
+        // Percurso iterativo: a árvore pode ter a profundidade da recursão do programa
+        Deque<CallPath> pending = new ArrayDeque<>(root.children.values());
+        while (!pending.isEmpty()) {
+            CallPath path = pending.pop();
+            long micros = path.selfNanos / 1000;
+            if (micros > 0) writer.write(stack(path) + " " + micros + "\n");
+            for (CallPath child : path.children.values()) pending.push(child);
+        }
+        writer.flush();
+    }
+
+    private static String stack(CallPath path) {
+        String[] names = new String[path.depth];
+        for (CallPath p = path; p.parent != null; p = p.parent) names[p.depth - 1] = p.name;
+        return String.join(";", names);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
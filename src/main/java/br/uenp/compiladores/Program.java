@@ -0,0 +1,53 @@
+package br.uenp.compiladores;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Programa já rebaixado: as funções com os corpos em nós executáveis. Não
+ * guarda referências para a árvore do ANTLR nem para o fluxo de tokens.
+ */
+public class Program implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, FunctionSymbol> functions;
+    private final Collection<StructDefinition> structs;
+    private final Collection<StructDefinition> unions;
+
+    public Program(Map<String, FunctionSymbol> functions, Collection<StructDefinition> structs, Collection<StructDefinition> unions) {
+        this.functions = functions;
+        this.structs = structs;
+        this.unions = unions;
+    }
+
+    public Map<String, FunctionSymbol> getFunctions() {
+        return functions;
+    }
+
+    public Collection<StructDefinition> getStructs() {
+        return structs;
+    }
+
+    public Collection<StructDefinition> getUnions() {
+        return unions;
+    }
+
+    public void run(ExecutionContext context) {
+        FunctionSymbol mainFunction = functions.get("main");
+        if (mainFunction == null) {
+            throw new RuntimeException("Erro: Função 'main' não encontrada.");
+        }
+        // O perfil mede as chamadas no interpretador recursivo: o modo de pilha não passa pelos corpos instrumentados
+        StackMachine machine = context.profiler == null ? StackMachine.fromSystemProperties() : null;
+        try {
+            if (machine != null) machine.run(mainFunction, new Object[0], context);
+            else Expressions.Call.invoke(mainFunction, new Object[0], context);
+        } catch (RuntimeException e) {
+            Events.runtimeError(e.getMessage(), true);
+            throw e;
+        } finally {
+            context.flush();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package br.uenp.compiladores;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cache em disco de programas já rebaixados. A chave é o SHA-256 do código
+ * fonte, da versão do formato e de todas as classes do compilador, pelo que
+ * execuções repetidas do mesmo programa carregam os nós diretamente, sem
+ * arrancar o ANTLR, e qualquer alteração ao compilador (nos nós, no
+ * rebaixamento, no TypeChecker, ...) invalida as entradas antigas.
+ *
+ * Diretório: -Dcsubset.cache.dir (por omissão ~/.cache/csubset); a cache é
+ * desativada com -Dcsubset.cache=false, e também quando não é possível ler as
+ * classes do compilador para calcular a chave. Uma entrada ilegível, de uma
+ * versão anterior do compilador ou com classes fora das permitidas (o
+ * diretório pode ser escrito por qualquer processo do utilizador) é
+ * simplesmente ignorada e reescrita.
+ */
+public class ProgramCache {
+
+    // Incrementar quando a forma dos nós mudar de maneira incompatível
+    private static final String FORMAT_VERSION = "csubset-program-1";
+
+    // Só os nós do compilador e as coleções e valores do java.* que eles usam
+    private static final String CLASSES_ALLOWED = "br.uenp.compiladores.*;java.lang.*;java.util.*;!*";
+
+    // Calculada só no primeiro uso da cache (não com -Dcsubset.cache=false); null se as classes não forem legíveis
+    private static final class Compiler {
+        static final byte[] FINGERPRINT = fingerprint();
+    }
+
+    private final Path directory;
+
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Cache configurada pelas propriedades do sistema, ou null se estiver desativada. */
+    public static ProgramCache fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty("csubset.cache", "true")) || Compiler.FINGERPRINT == null) return null;
+        String dir = System.getProperty("csubset.cache.dir");
+        Path path = dir != null ? Path.of(dir) : Path.of(System.getProperty("user.home"), ".cache", "csubset");
+        return new ProgramCache(path);
+    }
+
+    public static String key(byte[] source) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(FORMAT_VERSION.getBytes());
+            sha.update(Compiler.FINGERPRINT);
+            byte[] hash = sha.digest(source);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Identifica a compilação do compilador pelos metadados dos seus ficheiros,
+     * sem os ler: o tamanho e a data do próprio .jar, ou o nome, o tamanho e a
+     * data de cada .class do pacote quando corre a partir de target/classes.
+     * Cobre de uma vez o rebaixamento, os nós e as decisões tomadas nos seus
+     * construtores, sem uma lista mantida à mão; uma recompilação sem
+     * alterações apenas invalida a cache. Os serialVersionUID dos nós ficam
+     * fixos em 1: não são eles que detetam as mudanças de formato.
+     */
+    private static byte[] fingerprint() {
+        try {
+            CodeSource source = ProgramCache.class.getProtectionDomain().getCodeSource();
+            if (source == null) return null;
+            Path location = Path.of(source.getLocation().toURI());
+            StringBuilder stamp = new StringBuilder();
+            if (Files.isRegularFile(location)) {
+                stamp(stamp, location);
+            } else {
+                List<Path> files = new ArrayList<>();
+                Path classes = location.resolve(ProgramCache.class.getPackageName().replace('.', '/'));
+                try (DirectoryStream<Path> list = Files.newDirectoryStream(classes, "*.class")) {
+                    for (Path file : list) files.add(file);
+                }
+                Collections.sort(files);
+                for (Path file : files) stamp(stamp, file);
+            }
+            return stamp.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void stamp(StringBuilder stamp, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        stamp.append(file.getFileName()).append(':').append(attributes.size()).append(':')
+                .append(attributes.lastModifiedTime().toMillis()).append('\n');
+    }
+
+    private Path entry(String key) {
+        return directory.resolve(key + ".bin");
+    }
+
+    public Program load(String key) {
+        Path file = entry(key);
+        if (!Files.isRegularFile(file)) return null;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+             ObjectInputStream objects = new ObjectInputStream(in)) {
+            objects.setObjectInputFilter(ObjectInputFilter.Config.createFilter(CLASSES_ALLOWED));
+            return (Program) objects.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException | StackOverflowError e) {
+            // Entrada corrompida, de outra versão ou rejeitada pelo filtro (InvalidClassException): volta a compilar
+            return null;
+        }
+    }
+
+    public void store(String key, Program program) {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            // Escreve num ficheiro temporário e move: execuções concorrentes nunca leem meia entrada
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp));
+                 ObjectOutputStream objects = new ObjectOutputStream(out)) {
+                objects.writeObject(program);
+            }
+            Files.move(temp, entry(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            // A cache é apenas uma otimização: uma falha ao gravar não impede a execução
+            if (temp != null) {
+                try { Files.deleteIfExists(temp); } catch (IOException ignored) { }
+            }
+        }
+    }
+}
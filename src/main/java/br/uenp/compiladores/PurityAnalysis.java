@@ -0,0 +1,138 @@
+package br.uenp.compiladores;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deteção das funções puras, cujos resultados a MemoTable pode guardar. Uma
+ * função é pura quando não faz I/O (printf, scanf, gets, puts), não usa
+ * ponteiros nem o malloc/free, não altera structs ou arrays recebidos como
+ * parâmetro e só chama funções puras. Como não há variáveis globais, o
+ * resultado de uma função pura depende apenas dos argumentos.
+ *
+ * A memorização exige ainda que os parâmetros sejam escalares e caibam numa
+ * chave de 64 bits (ex.: até dois int/char, ou um float) e que a função
+ * devolva um escalar. A essas funções é atribuído um índice de tabela
+ * (FunctionSymbol.getMemoIndex); às restantes fica -1.
+ */
+public class PurityAnalysis extends NodeScanner {
+
+    private FunctionSymbol currentFunction;
+    private boolean impure;
+    private Set<FunctionSymbol> callees;
+
+    public void analyze(Program program) {
+        Map<FunctionSymbol, Set<FunctionSymbol>> calls = new HashMap<>();
+        Set<FunctionSymbol> pure = new HashSet<>();
+        for (FunctionSymbol function : program.getFunctions().values()) {
+            currentFunction = function;
+            impure = false;
+            callees = new HashSet<>();
+            scan(function.getBody());
+            calls.put(function, callees);
+            if (!impure) pure.add(function);
+        }
+        currentFunction = null;
+        callees = null;
+
+        // Funções recursivas começam como puras; saem as que chamam alguma impura, até estabilizar
+        boolean changed = true;
+        while (changed) {
+            changed = pure.removeIf(function -> !pure.containsAll(calls.get(function)));
+        }
+
+        List<FunctionSymbol> memoizable = new ArrayList<>();
+        for (FunctionSymbol function : program.getFunctions().values()) {
+            boolean eligible = pure.contains(function) && function.type.isArithmetic()
+                    && MemoTable.fitsKey(function.getParameters());
+            function.setMemoIndex(eligible ? memoizable.size() : -1);
+            if (eligible) memoizable.add(function);
+        }
+    }
+
+    private boolean isParameter(int slot) {
+        return slot < currentFunction.getParameters().size();
+    }
+
+    // ============================================================
+    //               EFEITOS
+    // ============================================================
+
+    @Override
+    public Void visitCall(Expressions.Call node) {
+        callees.add(node.function);
+        return super.visitCall(node);
+    }
+
+    @Override
+    public Void visitAddressOf(Expressions.AddressOf node) {
+        impure = true;
+        return null;
+    }
+
+    @Override
+    public Void visitMemberPointer(Expressions.MemberPointer node) {
+        impure = true;
+        return super.visitMemberPointer(node);
+    }
+
+    // malloc/calloc/free alteram a Arena, partilhada por todas as chamadas
+    @Override
+    public Void visitIntrinsic(Expressions.Intrinsic node) {
+        if (node.kind.header.equals("<stdlib.h>")) impure = true;
+        return super.visitIntrinsic(node);
+    }
+
+    @Override
+    public Void visitDeref(Expressions.Deref node) {
+        impure = true;
+        return super.visitDeref(node);
+    }
+
+    @Override
+    public Void visitDerefAssignment(Statements.DerefAssignment node) {
+        impure = true;
+        return super.visitDerefAssignment(node);
+    }
+
+    // Structs e arrays são passados por referência: escrever num parâmetro altera o objeto de quem chamou
+    @Override
+    public Void visitArrayAssignment(Statements.ArrayAssignment node) {
+        if (isParameter(node.slot)) impure = true;
+        return super.visitArrayAssignment(node);
+    }
+
+    @Override
+    public Void visitMemberAssignment(Statements.MemberAssignment node) {
+        if (isParameter(node.slot)) impure = true;
+        return super.visitMemberAssignment(node);
+    }
+
+    @Override
+    public Void visitPrintf(Statements.Printf node) {
+        impure = true;
+        return super.visitPrintf(node);
+    }
+
+    @Override
+    public Void visitScanf(Statements.Scanf node) {
+        impure = true;
+        return null;
+    }
+
+    @Override
+    public Void visitGets(Statements.Gets node) {
+        impure = true;
+        return null;
+    }
+
+    @Override
+    public Void visitPuts(Statements.Puts node) {
+        impure = true;
+        return null;
+    }
+}
@@ -0,0 +1,372 @@
+package br.uenp.compiladores;
+
+import java.util.Objects;
+
+/**
+ * Valor de um ponteiro. Cada forma aponta diretamente para a memória do
+ * alvo, sem nomes: o slot de uma variável no array do frame, um elemento de
+ * um array de int/float/char (o próprio array Java e o índice), o
+ * deslocamento de um membro de struct/union, ou um endereço da Arena do
+ * malloc. Ler ou escrever através do ponteiro é uma chamada virtual e um
+ * acesso a array (ou ao ByteBuffer da Arena).
+ *
+ * O tipo apontado vem do nó que desreferencia (a Arena guarda bytes, não
+ * objetos); as restantes formas já guardam valores do tipo certo.
+ */
+public abstract class Reference {
+
+    /** O ponteiro nulo (o 0 atribuído a um ponteiro, ou um malloc sem espaço). */
+    public static final Reference NULL = new Null();
+
+    public abstract Object get(CType type);
+
+    public abstract void set(CType type, Object value);
+
+    /** p + count, em elementos do tipo apontado. */
+    public Reference offset(int count, CType element) {
+        if (count == 0) return this;
+        throw new RuntimeException("Erro: Aritmética de ponteiros sobre um ponteiro que não aponta para um array.");
+    }
+
+    /** Ponteiro para o membro da struct/union apontada (p->membro). */
+    public Reference member(String name, int offset, int byteOffset) {
+        throw new RuntimeException("Erro: '->' sobre um ponteiro que não aponta para uma struct/union.");
+    }
+
+    /** Ponteiro para a variável no slot dado. */
+    public static Reference slot(Object[] frame, int slot) {
+        return new Slot(frame, slot);
+    }
+
+    /**
+     * Ponteiro para um membro da struct/union guardada no slot. A instância é
+     * lida em cada acesso: uma atribuição 's = t' substitui o conteúdo do slot
+     * e o ponteiro passa a ver o membro de t, como em C.
+     */
+    public static Reference member(Object[] frame, int slot, String member, int offset) {
+        return new Member(frame, slot, member, offset);
+    }
+
+    /**
+     * Ponteiro para array[index]. Como em C, o índice não é verificado aqui
+     * (&v[n] é válido); um acesso fora dos limites falha como um v[i].
+     */
+    public static Reference element(Object array, int index) {
+        if (array instanceof int[]) return new IntElement((int[]) array, index);
+        if (array instanceof double[]) return new FloatElement((double[]) array, index);
+        if (array instanceof char[]) return new CharElement((char[]) array, index);
+        return new ObjectElement((Object[]) array, index);
+    }
+
+    /** Ponteiro para o início de um bloco devolvido pela Arena. */
+    public static Reference heap(Arena arena, int address) {
+        return new Heap(arena, address, address);
+    }
+
+    private static final class Null extends Reference {
+        @Override
+        public Object get(CType type) {
+            throw new RuntimeException("Erro: Desreferência de ponteiro nulo.");
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            throw new RuntimeException("Erro: Desreferência de ponteiro nulo.");
+        }
+
+        @Override
+        public Reference offset(int count, CType element) {
+            throw new RuntimeException("Erro: Aritmética sobre um ponteiro nulo.");
+        }
+
+        @Override
+        public Reference member(String name, int offset, int byteOffset) {
+            throw new RuntimeException("Erro: Desreferência de ponteiro nulo.");
+        }
+    }
+
+    private static final class Slot extends Reference {
+        private final Object[] frame;
+        private final int slot;
+
+        Slot(Object[] frame, int slot) {
+            this.frame = frame;
+            this.slot = slot;
+        }
+
+        @Override
+        public Object get(CType type) {
+            Object target = frame[slot];
+            if (target == null) throw new RuntimeException("Erro: Desreferência de variável não inicializada.");
+            return target;
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            frame[slot] = value;
+        }
+
+        @Override
+        public Reference member(String name, int offset, int byteOffset) {
+            if (frame[slot] instanceof AggregateInstance) return new Member(frame, slot, name, offset);
+            return super.member(name, offset, byteOffset);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Slot && ((Slot) o).frame == frame && ((Slot) o).slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(frame) * 31 + slot;
+        }
+    }
+
+    private static final class Member extends Reference {
+        private final Object[] frame;
+        private final int slot;
+        private final String member; // Só para as mensagens de erro
+        private final int offset;
+
+        Member(Object[] frame, int slot, String member, int offset) {
+            this.frame = frame;
+            this.slot = slot;
+            this.member = member;
+            this.offset = offset;
+        }
+
+        private AggregateInstance instance() {
+            Object target = frame[slot];
+            if (target instanceof AggregateInstance) return (AggregateInstance) target;
+            throw new RuntimeException("Erro: Não é struct nem union.");
+        }
+
+        @Override
+        public Object get(CType type) {
+            return instance().read(offset, member);
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            instance().write(offset, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Member && ((Member) o).frame == frame && ((Member) o).slot == slot && ((Member) o).offset == offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(frame), slot, offset);
+        }
+    }
+
+    /** Membro de uma instância guardada num array de structs (p->membro com p = &v[i]). */
+    private static final class Field extends Reference {
+        private final AggregateInstance instance;
+        private final String member;
+        private final int offset;
+
+        Field(AggregateInstance instance, String member, int offset) {
+            this.instance = instance;
+            this.member = member;
+            this.offset = offset;
+        }
+
+        @Override
+        public Object get(CType type) {
+            return instance.read(offset, member);
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            instance.write(offset, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Field && ((Field) o).instance == instance && ((Field) o).offset == offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(instance) * 31 + offset;
+        }
+    }
+
+    // Os valores chegam já convertidos para o tipo do elemento (Integer, Double ou Character)
+
+    private abstract static class Element extends Reference {
+        final int index;
+
+        Element(int index) {
+            this.index = index;
+        }
+
+        abstract Object array();
+
+        @Override
+        public Reference offset(int count, CType element) {
+            return element(array(), index + count);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Element && ((Element) o).array() == array() && ((Element) o).index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(array()) * 31 + index;
+        }
+    }
+
+    private static final class IntElement extends Element {
+        private final int[] array;
+
+        IntElement(int[] array, int index) {
+            super(index);
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        public Object get(CType type) {
+            return array[index];
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            array[index] = (Integer) value;
+        }
+    }
+
+    private static final class FloatElement extends Element {
+        private final double[] array;
+
+        FloatElement(double[] array, int index) {
+            super(index);
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        public Object get(CType type) {
+            return array[index];
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            array[index] = (Double) value;
+        }
+    }
+
+    private static final class CharElement extends Element {
+        private final char[] array;
+
+        CharElement(char[] array, int index) {
+            super(index);
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        public Object get(CType type) {
+            return array[index];
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            array[index] = (Character) value;
+        }
+    }
+
+    private static final class ObjectElement extends Element {
+        private final Object[] array;
+
+        ObjectElement(Object[] array, int index) {
+            super(index);
+            this.array = array;
+        }
+
+        @Override
+        Object array() {
+            return array;
+        }
+
+        @Override
+        public Object get(CType type) {
+            Object target = array[index];
+            if (target == null) throw new RuntimeException("Erro: Desreferência de variável não inicializada.");
+            return target;
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            array[index] = value;
+        }
+
+        @Override
+        public Reference member(String name, int offset, int byteOffset) {
+            if (array[index] instanceof AggregateInstance) return new Field((AggregateInstance) array[index], name, offset);
+            return super.member(name, offset, byteOffset);
+        }
+    }
+
+    /** Endereço na Arena; o tipo apontado decide quantos bytes são lidos ou escritos. */
+    static final class Heap extends Reference {
+        final Arena arena;
+        final int block; // Início do bloco de onde o ponteiro veio: os acessos são verificados contra ele
+        final int address;
+
+        Heap(Arena arena, int block, int address) {
+            this.arena = arena;
+            this.block = block;
+            this.address = address;
+        }
+
+        @Override
+        public Object get(CType type) {
+            return arena.load(block, address, type);
+        }
+
+        @Override
+        public void set(CType type, Object value) {
+            arena.store(block, address, type, value);
+        }
+
+        @Override
+        public Reference offset(int count, CType element) {
+            return new Heap(arena, block, address + count * Arena.sizeOf(element));
+        }
+
+        @Override
+        public Reference member(String name, int offset, int byteOffset) {
+            return new Heap(arena, block, address + byteOffset);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Heap && ((Heap) o).arena == arena && ((Heap) o).address == address;
+        }
+
+        @Override
+        public int hashCode() {
+            return address;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package br.uenp.compiladores;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Passo de resolução executado uma única vez, antes da interpretação.
+ * Associa cada parâmetro e variável local a um slot fixo no frame da sua
+ * função e anota os nós da árvore (campo 'symbol'), de forma que o
+ * interpretador acede às variáveis por índice, sem procurar nomes.
+ */
+public class Resolver extends CSubsetBaseVisitor<Void> {
+
+    private final SymbolTable symbolTable;
+    private Set<Integer> addressTaken; // Slots da função atual com '&' em algum ponto
+
+    public Resolver(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    public void resolveFunction(CSubsetParser.FunctionDeclarationContext ctx, FunctionSymbol function) {
+        symbolTable.beginFunction();
+        addressTaken = new HashSet<>();
+        if (ctx.paramList() != null) {
+            for (CSubsetParser.ParamContext paramCtx : ctx.paramList().param()) {
+                paramCtx.symbol = symbolTable.add(paramCtx.ID().getText(), symbolTable.resolveType(paramCtx.type()));
+            }
+        }
+        visit(ctx.block());
+        function.setFrameSize(symbolTable.getFrameSize());
+    }
+
+    /**
+     * Slots da última função resolvida cujo endereço é tomado ('&x', '&s.m',
+     * '&v[i]'). Só estas variáveis podem mudar através de um ponteiro.
+     */
+    public Set<Integer> getAddressTaken() {
+        return addressTaken;
+    }
+
+    private Symbol lookup(String name) {
+        return symbolTable.lookup(name);
+    }
+
+    // ============================================================
+    //               ESCOPOS
+    // ============================================================
+
+    @Override
+    public Void visitBlock(CSubsetParser.BlockContext ctx) {
+        symbolTable.enterScope();
+        visitChildren(ctx);
+        symbolTable.exitScope();
+        return null;
+    }
+
+    @Override
+    public Void visitForStatement(CSubsetParser.ForStatementContext ctx) {
+        symbolTable.enterScope();
+        visitChildren(ctx);
+        symbolTable.exitScope();
+        return null;
+    }
+
+    // ============================================================
+    //               DECLARAÇÕES E USOS
+    // ============================================================
+
+    @Override
+    public Void visitSimpleDeclaration(CSubsetParser.SimpleDeclarationContext ctx) {
+        CType type = symbolTable.resolveType(ctx.type());
+        if (ctx.LBRACKET() != null) type = CType.arrayOf(type, Integer.parseInt(ctx.INT().getText()));
+        ctx.symbol = symbolTable.add(ctx.ID().getText(), type);
+        if (ctx.expression() != null) visit(ctx.expression());
+        return null;
+    }
+
+    @Override
+    public Void visitLvalue(CSubsetParser.LvalueContext ctx) {
+        if (ctx.ID() != null) {
+            ctx.symbol = lookup(ctx.ID().getText());
+            return null;
+        }
+        return visitChildren(ctx);
+    }
+
+    @Override
+    public Void visitPrimaryExpr(CSubsetParser.PrimaryExprContext ctx) {
+        if (ctx.ID() != null) {
+            String name = ctx.ID().getText();
+            // Constantes do #define não ocupam slot; ficam com symbol == null
+            if (!symbolTable.isDefine(name)) ctx.symbol = lookup(name);
+            return null;
+        }
+        return visitChildren(ctx);
+    }
+
+    @Override
+    public Void visitUnaryExpr(CSubsetParser.UnaryExprContext ctx) {
+        visitChildren(ctx);
+        CSubsetParser.PrimaryExprContext operand = ctx.AMPERSAND() != null ? ctx.unaryExpr().primaryExpr() : null;
+        if (operand != null) {
+            Symbol symbol = operand.symbol;
+            if (operand.arrayAccess() != null) symbol = operand.arrayAccess().symbol;
+            if (operand.memberAccess() != null) symbol = operand.memberAccess().symbol;
+            if (symbol != null) addressTaken.add(symbol.slot);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitArrayAccess(CSubsetParser.ArrayAccessContext ctx) {
+        ctx.symbol = lookup(ctx.ID().getText());
+        visit(ctx.expression());
+        return null;
+    }
+
+    @Override
+    public Void visitMemberAccess(CSubsetParser.MemberAccessContext ctx) {
+        ctx.symbol = lookup(ctx.ID(0).getText());
+        return null;
+    }
+
+    @Override
+    public Void visitScanfStatement(CSubsetParser.ScanfStatementContext ctx) {
+        ctx.symbol = lookup(ctx.ID().getText());
+        return null;
+    }
+
+    @Override
+    public Void visitGetsStatement(CSubsetParser.GetsStatementContext ctx) {
+        ctx.symbol = lookup(ctx.ID().getText());
+        return null;
+    }
+}
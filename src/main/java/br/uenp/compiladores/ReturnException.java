@@ -1,20 +0,0 @@
-package br.uenp.compiladores;
-
-public class ReturnException extends RuntimeException {
-
-    private final Object value;
-
-    public ReturnException(Object value) {
-        super();
-        this.value = value;
-    }
-
-    public Object getValue() {
-        return value;
-    }
-
-    @Override
-    public synchronized Throwable fillInStackTrace() {
-        return this;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package br.uenp.compiladores;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.atn.DecisionInfo;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Análise sintática em duas fases. Primeiro tenta a predição SLL, mais
+ * barata, com uma estratégia que aborta ao primeiro erro; só se essa fase
+ * falhar é que o texto volta a ser analisado com LL completo e a recuperação
+ * de erros habitual do ANTLR. Para programas corretos o resultado é o mesmo,
+ * e os erros de sintaxe continuam a ser reportados pela segunda fase.
+ *
+ * Com -Dcsubset.parse.stats=true são mostrados na saída de erro os tempos de
+ * análise léxica, sintática e de predição, e o estado da cache DFA do
+ * CSubsetParser. A medição do tempo de predição ativa o modo de perfil do
+ * ANTLR, que tem custo próprio; sem a propriedade nada disto é recolhido.
+ */
+public class SourceParser {
+
+    private final boolean collectStats;
+    private final PrintStream diagnostics;
+
+    private CSubsetParser parser;
+    private final Reporter lexerErrors = new Reporter();
+    private boolean fallbackToLL;
+    private int tokenCount;
+    private long lexNanos, parseNanos;
+
+    /** @param diagnostics destino das mensagens de erro léxico e sintático (o System.err do ConsoleErrorListener) */
+    public SourceParser(boolean collectStats, PrintStream diagnostics) {
+        this.collectStats = collectStats;
+        this.diagnostics = diagnostics;
+    }
+
+    public static SourceParser fromSystemProperties(PrintStream diagnostics) {
+        return new SourceParser(Boolean.getBoolean("csubset.parse.stats"), diagnostics);
+    }
+
+    public ParseTree parse(CharStream input) {
+        long start = System.nanoTime();
+        CSubsetLexer lexer = new CSubsetLexer(input);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(lexerErrors);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        tokenCount = tokens.size();
+        long lexed = System.nanoTime();
+
+        parser = new CSubsetParser(tokens);
+        parser.setProfile(collectStats);
+
+        // Fase 1: SLL, sem mensagens nem recuperação
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        ParseTree tree;
+        try {
+            tree = parser.program();
+        } catch (ParseCancellationException e) {
+            // Fase 2: LL completo com a recuperação e as mensagens por omissão
+            fallbackToLL = true;
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            parser.addErrorListener(new Reporter());
+            parser.reset();
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            tree = parser.program();
+        }
+        long parsed = System.nanoTime();
+
+        lexNanos = lexed - start;
+        parseNanos = parsed - lexed;
+        return tree;
+    }
+
+    // Mesmo formato que o ConsoleErrorListener do ANTLR, mas para o destino dado
+    private class Reporter extends BaseErrorListener {
+        int count;
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+            count++;
+            diagnostics.println("line " + line + ":" + charPositionInLine + " " + msg);
+        }
+    }
+
+    /** Erros léxicos e sintáticos da última análise (recuperados pelo ANTLR). */
+    public int getNumberOfErrors() {
+        return lexerErrors.count + parser.getNumberOfSyntaxErrors();
+    }
+
+    int getTokenCount() {
+        return tokenCount;
+    }
+
+    boolean usedFallbackToLL() {
+        return fallbackToLL;
+    }
+
+    public boolean isStatsEnabled() {
+        return collectStats;
+    }
+
+    // ============================================================
+    //               MÉTRICAS
+    // ============================================================
+
+    private static final int TOP_DECISIONS = 5;
+
+    public void printStats(PrintStream out) {
+        out.printf("[parse] léxico: %.2f ms (%d tokens), sintático: %.2f ms (%s)%n",
+                millis(lexNanos), tokenCount, millis(parseNanos), fallbackToLL ? "SLL falhou, LL completo" : "SLL");
+
+        DecisionInfo[] decisions = parser.getParseInfo() != null ? parser.getParseInfo().getDecisionInfo() : new DecisionInfo[0];
+        long predictionNanos = 0;
+        for (DecisionInfo d : decisions) predictionNanos += d.timeInPrediction;
+        out.printf("[parse] predição: %.2f ms em %d decisões%n", millis(predictionNanos), decisions.length);
+
+        // A cache DFA é estática no parser gerado: cresce ao longo de todas as análises da JVM
+        DFA[] dfas = parser.getInterpreter().decisionToDFA;
+        int states = 0, used = 0;
+        for (DFA dfa : dfas) {
+            states += dfa.states.size();
+            if (!dfa.states.isEmpty()) used++;
+        }
+        out.printf("[parse] cache DFA: %d estados em %d de %d decisões%n", states, used, dfas.length);
+
+        List<DecisionInfo> costly = new ArrayList<>(List.of(decisions));
+        costly.sort(Comparator.comparingLong((DecisionInfo d) -> d.timeInPrediction).reversed());
+        for (DecisionInfo d : costly.subList(0, Math.min(TOP_DECISIONS, costly.size()))) {
+            if (d.timeInPrediction == 0) break;
+            String rule = parser.getRuleNames()[parser.getATN().getDecisionState(d.decision).ruleIndex];
+            out.printf("[parse]   decisão %d (%s): %.2f ms, %d chamadas, %d estados DFA, %d recursos a LL%n",
+                    d.decision, rule, millis(d.timeInPrediction), d.invocations,
+                    dfas[d.decision].states.size(), d.LL_Fallback);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
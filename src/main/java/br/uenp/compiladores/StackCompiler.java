@@ -0,0 +1,432 @@
+package br.uenp.compiladores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tradução do corpo de uma função para o código linear da StackMachine.
+ *
+ * Só as partes que contêm chamadas são achatadas em instruções: é através
+ * delas que a recursão do C se tornaria recursão Java. Uma subárvore sem
+ * chamadas é executada pelo próprio nó (EVAL/EXEC), cuja profundidade só
+ * depende do aninhamento das expressões no código fonte.
+ *
+ * Os try/catch que os nós usam para reportar um erro e continuar (ex.: o
+ * índice de um array, a inicialização de uma declaração) tornam-se regiões
+ * da tabela de tratadores, para que um erro lançado dentro de uma chamada
+ * seja tratado no mesmo ponto que no interpretador recursivo.
+ */
+public class StackCompiler implements NodeVisitor<Void> {
+
+    private final FunctionSymbol function;
+    private int[] code = new int[64];
+    private int length;
+    private final List<Object> constants = new ArrayList<>();
+    private final List<StackMachine.Handler> handlers = new ArrayList<>();
+    private int depth;    // Altura da pilha de operandos no ponto atual da emissão
+    private int maxDepth;
+    private List<Integer> breaks; // Saltos do 'break' do switch que está a ser compilado
+
+    private StackCompiler(FunctionSymbol function) {
+        this.function = function;
+    }
+
+    public static StackMachine.Code compile(FunctionSymbol function) {
+        StackCompiler compiler = new StackCompiler(function);
+        compiler.stmt(function.getBody());
+        compiler.emit(StackMachine.END, compiler.constant(function), 0, 0);
+        return new StackMachine.Code(function, Arrays.copyOf(compiler.code, compiler.length),
+                compiler.constants.toArray(), compiler.handlers.toArray(new StackMachine.Handler[0]), compiler.maxDepth);
+    }
+
+    // ============================================================
+    //               EMISSÃO
+    // ============================================================
+
+    private int emit(int op, int a, int b, int stackEffect) {
+        if (length + 3 > code.length) code = Arrays.copyOf(code, code.length * 2);
+        int at = length;
+        code[length++] = op;
+        code[length++] = a;
+        code[length++] = b;
+        depth += stackEffect;
+        maxDepth = Math.max(maxDepth, depth);
+        return at;
+    }
+
+    private int constant(Object value) {
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    private void patch(int instruction, int target) {
+        code[instruction + 2] = target;
+    }
+
+    // Região [start, fim atual) cujo erro é reportado, repondo a pilha a 'height' e seguindo em 'target'
+    private void handler(int start, int height, int target) {
+        handlers.add(new StackMachine.Handler(start, length, target, height));
+    }
+
+    private static boolean hasCall(ExprNode node) {
+        return node != null && CallFinder.find(node);
+    }
+
+    private static boolean hasCall(StmtNode node) {
+        return node != null && CallFinder.find(node);
+    }
+
+    private void expr(ExprNode node) {
+        if (hasCall(node)) node.accept(this);
+        else emit(StackMachine.EVAL, constant(node), 0, 1);
+    }
+
+    private void stmt(StmtNode node) {
+        if (node instanceof Statements.Break || hasCall(node)) node.accept(this);
+        else emit(StackMachine.EXEC, constant(node), 0, 0);
+    }
+
+    // Salta para um destino a corrigir depois se a condição for falsa
+    private int jumpIfFalse(ExprNode condition) {
+        if (hasCall(condition)) {
+            condition.accept(this);
+            return emit(StackMachine.TEST_FALSE, constant(condition.getType()), 0, -1);
+        }
+        return emit(StackMachine.EVAL_TEST, constant(condition), 0, 0);
+    }
+
+    // O mesmo que evalInt/evalDouble do operando, antes de calcular o seguinte
+    private void exprAs(ExprNode node, CType.Kind kind) {
+        expr(node);
+        if (kind == CType.Kind.INT) emit(StackMachine.TO_INT, 0, 0, 0);
+        else emit(StackMachine.TO_DOUBLE, 0, 0, 0);
+    }
+
+    // ============================================================
+    //               EXPRESSÕES (apenas as que contêm chamadas)
+    // ============================================================
+
+    @Override public Void visitLiteral(Expressions.Literal node) { throw noCall(); }
+    @Override public Void visitLocalRead(Expressions.LocalRead node) { throw noCall(); }
+    @Override public Void visitMemberRead(Expressions.MemberRead node) { throw noCall(); }
+
+    private static IllegalStateException noCall() {
+        return new IllegalStateException("nó sem chamadas deveria ser avaliado diretamente");
+    }
+
+    @Override
+    public Void visitAddressOf(Expressions.AddressOf node) {
+        if (node.index == null) throw noCall();
+        expr(node.index);
+        emit(StackMachine.ELEMENT_ADDRESS, constant(node), 0, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitArrayRead(Expressions.ArrayRead node) {
+        // Como no ArrayRead.eval: um erro no índice é reportado e o elemento fica null
+        int height = depth, start = length;
+        expr(node.index);
+        emit(StackMachine.ARRAY_READ, constant(node), 0, 0);
+        int skip = emit(StackMachine.JUMP, 0, 0, 0);
+        handler(start, height, length);
+        depth = height;
+        emit(StackMachine.PUSH, constant(null), 0, 1);
+        patch(skip, length);
+        return null;
+    }
+
+    @Override
+    public Void visitDeref(Expressions.Deref node) {
+        expr(node.pointer);
+        emit(StackMachine.DEREF, constant(node.getType()), 0, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitMemberPointer(Expressions.MemberPointer node) {
+        expr(node.pointer);
+        emit(StackMachine.MEMBER_POINTER, constant(node), 0, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitNot(Expressions.Not node) {
+        expr(node.operand);
+        emit(StackMachine.NOT, constant(node.operand.getType()), 0, 0);
+        return null;
+    }
+
+    @Override
+    public Void visitArithmetic(Expressions.Arithmetic node) {
+        CType.Kind kind = node.getType().getKind();
+        if (kind == CType.Kind.POINTER) {
+            expr(node.left);
+            expr(node.right);
+        } else {
+            exprAs(node.left, kind);
+            exprAs(node.right, kind);
+        }
+        emit(StackMachine.ARITH, constant(node), 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitRelational(Expressions.Relational node) {
+        if (node instanceof Expressions.IntRelational) {
+            exprAs(node.left, CType.Kind.INT);
+            exprAs(node.right, CType.Kind.INT);
+        } else if (node instanceof Expressions.FloatRelational) {
+            exprAs(node.left, CType.Kind.FLOAT);
+            exprAs(node.right, CType.Kind.FLOAT);
+        } else {
+            expr(node.left);
+            expr(node.right);
+        }
+        emit(StackMachine.RELATIONAL, constant(node), 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalAnd(Expressions.LogicalAnd node) {
+        int leftFalse = jumpIfFalse(node.left);
+        int rightFalse = jumpIfFalse(node.right);
+        emit(StackMachine.PUSH, constant(Boolean.TRUE), 0, 1);
+        int end = emit(StackMachine.JUMP, 0, 0, -1);
+        patch(leftFalse, length);
+        patch(rightFalse, length);
+        emit(StackMachine.PUSH, constant(Boolean.FALSE), 0, 1);
+        patch(end, length);
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalOr(Expressions.LogicalOr node) {
+        int leftFalse = jumpIfFalse(node.left);
+        int leftTrue = emit(StackMachine.JUMP, 0, 0, 0);
+        patch(leftFalse, length);
+        int rightFalse = jumpIfFalse(node.right);
+        patch(leftTrue, length);
+        emit(StackMachine.PUSH, constant(Boolean.TRUE), 0, 1);
+        int end = emit(StackMachine.JUMP, 0, 0, -1);
+        patch(rightFalse, length);
+        emit(StackMachine.PUSH, constant(Boolean.FALSE), 0, 1);
+        patch(end, length);
+        return null;
+    }
+
+    @Override
+    public Void visitCall(Expressions.Call node) {
+        // Cada argumento é convertido logo a seguir, como no evalAs do Call.eval
+        for (int i = 0; i < node.args.length; i++) {
+            expr(node.args[i]);
+            emit(StackMachine.CONVERT, constant(node.parameterTypes[i]), 0, 0);
+        }
+        // Os argumentos saem da pilha para os slots do novo frame; o valor devolvido entra
+        emit(StackMachine.CALL, constant(node), 0, 1 - node.args.length);
+        return null;
+    }
+
+    @Override
+    public Void visitIntrinsic(Expressions.Intrinsic node) {
+        for (ExprNode arg : node.args) expr(arg);
+        emit(StackMachine.INTRINSIC, constant(node), 0, 1 - node.args.length);
+        return null;
+    }
+
+    // ============================================================
+    //               INSTRUÇÕES (apenas as que contêm chamadas)
+    // ============================================================
+
+    @Override
+    public Void visitBlock(Statements.Block node) {
+        for (StmtNode statement : node.statements) stmt(statement);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(Statements.ExpressionStatement node) {
+        expr(node.expression);
+        emit(StackMachine.POP, 0, 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitDeclaration(Statements.Declaration node) {
+        // Todo o Declaration.exec está dentro de um try: o erro é reportado e a execução continua
+        int height = depth, start = length;
+        emit(StackMachine.DECLARE, constant(node), 0, 0);
+        expr(node.init);
+        emit(StackMachine.CONVERT, constant(node.type), 0, 0);
+        emit(StackMachine.STORE_LOCAL, node.slot, 0, -1);
+        handler(start, height, length);
+        return null;
+    }
+
+    @Override
+    public Void visitLocalAssignment(Statements.LocalAssignment node) {
+        expr(node.value);
+        emit(StackMachine.CONVERT, constant(node.targetType), 0, 0);
+        emit(StackMachine.STORE_LOCAL, node.slot, 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitArrayAssignment(Statements.ArrayAssignment node) {
+        // O valor é convertido fora do try; o índice e a escrita, dentro
+        int height = depth;
+        expr(node.value);
+        emit(StackMachine.CONVERT, constant(node.elementType), 0, 0);
+        int start = length;
+        expr(node.index);
+        emit(StackMachine.STORE_ARRAY, constant(node), 0, -2);
+        handler(start, height, length);
+        return null;
+    }
+
+    @Override
+    public Void visitMemberAssignment(Statements.MemberAssignment node) {
+        expr(node.value);
+        emit(StackMachine.CONVERT, constant(node.memberType), 0, 0);
+        emit(StackMachine.STORE_MEMBER, constant(node), 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitDerefAssignment(Statements.DerefAssignment node) {
+        int height = depth;
+        expr(node.value);
+        emit(StackMachine.CONVERT, constant(node.targetType), 0, 0);
+        int start = length;
+        expr(node.pointer);
+        emit(StackMachine.STORE_DEREF, constant(node.targetType), 0, -2);
+        handler(start, height, length);
+        return null;
+    }
+
+    @Override
+    public Void visitIf(Statements.If node) {
+        int toElse = jumpIfFalse(node.condition);
+        stmt(node.thenBranch);
+        if (node.elseBranch == null) {
+            patch(toElse, length);
+            return null;
+        }
+        int toEnd = emit(StackMachine.JUMP, 0, 0, 0);
+        patch(toElse, length);
+        stmt(node.elseBranch);
+        patch(toEnd, length);
+        return null;
+    }
+
+    @Override
+    public Void visitWhile(Statements.While node) {
+        int top = length;
+        int exit = jumpIfFalse(node.condition);
+        stmt(node.body);
+        emit(StackMachine.JUMP, 0, top, 0);
+        patch(exit, length);
+        return null;
+    }
+
+    @Override
+    public Void visitDoWhile(Statements.DoWhile node) {
+        int top = length;
+        stmt(node.body);
+        int exit = jumpIfFalse(node.condition);
+        emit(StackMachine.JUMP, 0, top, 0);
+        patch(exit, length);
+        return null;
+    }
+
+    @Override
+    public Void visitFor(Statements.For node) {
+        if (node.init != null) stmt(node.init);
+        int top = length;
+        int exit = node.condition != null ? jumpIfFalse(node.condition) : -1;
+        stmt(node.body);
+        if (node.increment != null) stmt(node.increment);
+        emit(StackMachine.JUMP, 0, top, 0);
+        if (exit >= 0) patch(exit, length);
+        return null;
+    }
+
+    @Override
+    public Void visitSwitch(Statements.Switch node) {
+        exprAs(node.selector, CType.Kind.INT);
+        // targets: início de cada case, depois o default (ou o fim), indexados pela SwitchTable
+        int[] targets = new int[node.caseValues.length + 1];
+        emit(StackMachine.SWITCH, constant(node.table), constant(targets), -1);
+
+        List<Integer> outer = breaks;
+        breaks = new ArrayList<>();
+        for (int i = 0; i < node.caseBodies.length; i++) {
+            targets[i] = length;
+            for (StmtNode statement : node.caseBodies[i]) stmt(statement);
+        }
+        // Sem 'break' no último case a execução continua no default
+        targets[node.caseValues.length] = length;
+        if (node.defaultBody != null) {
+            for (StmtNode statement : node.defaultBody) stmt(statement);
+        }
+        for (int jump : breaks) patch(jump, length);
+        breaks = outer;
+        return null;
+    }
+
+    @Override
+    public Void visitBreak(Statements.Break node) {
+        breaks.add(emit(StackMachine.JUMP, 0, 0, 0));
+        return null;
+    }
+
+    @Override
+    public Void visitReturn(Statements.Return node) {
+        if (node.value == null) {
+            emit(StackMachine.PUSH, constant(null), 0, 1);
+        } else {
+            expr(node.value);
+            emit(StackMachine.CONVERT, constant(node.returnType), 0, 0);
+        }
+        emit(StackMachine.RETURN, 0, 0, -1);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintf(Statements.Printf node) {
+        for (ExprNode arg : node.args) expr(arg);
+        emit(StackMachine.PRINTF, constant(node), 0, -node.args.length);
+        return null;
+    }
+
+    @Override public Void visitScanf(Statements.Scanf node) { throw noCall(); }
+    @Override public Void visitGets(Statements.Gets node) { throw noCall(); }
+    @Override public Void visitPuts(Statements.Puts node) { throw noCall(); }
+
+    // ============================================================
+    //               DETEÇÃO DE CHAMADAS
+    // ============================================================
+
+    private static final class CallFinder extends NodeScanner {
+        private boolean found;
+
+        static boolean find(ExprNode node) {
+            CallFinder finder = new CallFinder();
+            finder.scan(node);
+            return finder.found;
+        }
+
+        static boolean find(StmtNode node) {
+            CallFinder finder = new CallFinder();
+            finder.scan(node);
+            return finder.found;
+        }
+
+        @Override
+        public Void visitCall(Expressions.Call node) {
+            found = true;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package br.uenp.compiladores;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static br.uenp.compiladores.Expressions.load;
+import static br.uenp.compiladores.Expressions.toDouble;
+import static br.uenp.compiladores.Expressions.toInt;
+
+/**
+ * Execução com pilha explícita (-Dcsubset.exec=stack). No interpretador por
+ * omissão cada chamada em C é uma chamada Java (Call.eval → Block.exec → ...),
+ * pelo que uma recursão profunda esgota a pilha da thread. Aqui o corpo de
+ * cada função é traduzido pelo StackCompiler para código linear, e as
+ * chamadas apenas guardam o ponto de retorno em arrays no heap: a
+ * profundidade deixa de depender da pilha da JVM.
+ *
+ * O limite de chamadas aninhadas vem de -Dcsubset.stack.depth (por omissão
+ * 100000); ao excedê-lo a execução termina com um erro em vez de um
+ * StackOverflowError. Os frames continuam a ser os do ExecutionContext.
+ */
+public final class StackMachine {
+
+    public static final int DEFAULT_MAX_DEPTH = 100_000;
+
+    // Instruções: três ints cada (op, a, b); 'a' é em geral um índice nas constantes e 'b' um destino de salto
+    static final int EVAL = 0;         // empilha constants[a].eval(frame)
+    static final int EVAL_TEST = 1;    // salta para b se constants[a].evalBoolean(frame) for falso
+    static final int EXEC = 2;         // executa a instrução constants[a], sem chamadas
+    static final int POP = 3;
+    static final int PUSH = 4;         // empilha constants[a]
+    static final int JUMP = 5;
+    static final int TEST_FALSE = 6;   // desempilha um valor do tipo constants[a] e salta para b se for falso
+    static final int TO_INT = 7;
+    static final int TO_DOUBLE = 8;
+    static final int CONVERT = 9;      // converte o topo para o tipo constants[a] (como o evalAs)
+    static final int ARITH = 10;
+    static final int RELATIONAL = 11;
+    static final int NOT = 12;
+    static final int DEREF = 13;
+    static final int ARRAY_READ = 14;
+    static final int CALL = 15;
+    static final int DECLARE = 16;
+    static final int STORE_LOCAL = 17; // frame.slots[a] = topo
+    static final int STORE_ARRAY = 18;
+    static final int STORE_MEMBER = 19;
+    static final int STORE_DEREF = 20;
+    static final int PRINTF = 21;
+    static final int SWITCH = 22;      // constants[a]: SwitchTable; constants[b]: destinos (o último é o default ou o fim)
+    static final int RETURN = 23;
+    static final int END = 24;         // fim do corpo sem 'return'
+    static final int ELEMENT_ADDRESS = 25; // '&v[i]' com o índice no topo; constants[a]: o AddressOf
+    static final int INTRINSIC = 26;   // função de biblioteca constants[a] sobre os argumentos no topo
+    static final int MEMBER_POINTER = 27; // '&p->membro' com p no topo; constants[a]: o MemberPointer
+
+    /** Região [start, end) do código cujos erros são reportados, seguindo em 'target'. */
+    static final class Handler {
+        final int start, end, target, height;
+
+        Handler(int start, int end, int target, int height) {
+            this.start = start;
+            this.end = end;
+            this.target = target;
+            this.height = height;
+        }
+    }
+
+    /** Corpo de uma função traduzido. */
+    static final class Code {
+        final FunctionSymbol function;
+        final int frameSize;
+        final int[] code;
+        final Object[] constants;
+        final Handler[] handlers; // Das regiões mais internas para as mais externas
+        final int maxStack;
+
+        Code(FunctionSymbol function, int[] code, Object[] constants, Handler[] handlers, int maxStack) {
+            this.function = function;
+            this.frameSize = function.getFrameSize();
+            this.code = code;
+            this.constants = constants;
+            this.handlers = handlers;
+            this.maxStack = maxStack;
+        }
+
+        Handler handlerAt(int pc) {
+            for (Handler h : handlers) {
+                if (pc >= h.start && pc < h.end) return h;
+            }
+            return null;
+        }
+    }
+
+    // Não é apanhado pelos tratadores dos nós, tal como um StackOverflowError no modo recursivo
+    private static final class DepthExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DepthExceeded(int maxDepth) {
+            super("Erro: Limite de profundidade de chamadas excedido (" + maxDepth + ").");
+        }
+    }
+
+    private final int maxDepth;
+    private final Map<FunctionSymbol, Code> compiled = new IdentityHashMap<>();
+
+    public StackMachine(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /** Máquina configurada pelas propriedades do sistema, ou null no modo recursivo (por omissão). */
+    public static StackMachine fromSystemProperties() {
+        if (!"stack".equals(System.getProperty("csubset.exec"))) return null;
+        return new StackMachine(Integer.getInteger("csubset.stack.depth", DEFAULT_MAX_DEPTH));
+    }
+
+    private Code code(FunctionSymbol function) {
+        return compiled.computeIfAbsent(function, StackCompiler::compile);
+    }
+
+    // ============================================================
+    //               EXECUÇÃO
+    // ============================================================
+
+    public Object run(FunctionSymbol function, Object[] args, ExecutionContext context) {
+        // Activação corrente em variáveis locais; as que esperam pelo retorno, nestes arrays
+        Code[] callerCode = new Code[16];
+        Frame[] callerFrame = new Frame[16];
+        int[] callerPc = new int[16];
+        int[] callerBase = new int[16];
+        long[] callerMemoKey = new long[16];
+        int[] callerMemoErrors = new int[16];
+        int depth = 0;
+        MemoTable memo = context.memo;
+        long memoKey = 0;
+        int memoErrors = -1; // >= 0 se o resultado da chamada corrente vai para a MemoTable
+
+        Code code = code(function);
+        Object[] stack = new Object[Math.max(16, code.maxStack)];
+        int sp = 0, base = 0, pc = 0, at = 0;
+        Frame frame = context.pushFrame(code.frameSize);
+        System.arraycopy(args, 0, frame.slots, 0, args.length);
+
+        for (;;) {
+            try {
+                for (;;) {
+                    at = pc;
+                    int[] ins = code.code;
+                    int a = ins[at + 1], b = ins[at + 2];
+                    pc = at + 3;
+                    Object returned;
+
+                    switch (ins[at]) {
+                        case EVAL:
+                            stack[sp++] = ((ExprNode) code.constants[a]).eval(frame);
+                            continue;
+                        case EVAL_TEST:
+                            if (!((ExprNode) code.constants[a]).evalBoolean(frame)) pc = b;
+                            continue;
+                        case EXEC:
+                            if (((StmtNode) code.constants[a]).exec(frame) != StmtNode.RETURN) continue;
+                            returned = frame.returnValue;
+                            break;
+                        case POP:
+                            stack[--sp] = null;
+                            continue;
+                        case PUSH:
+                            stack[sp++] = code.constants[a];
+                            continue;
+                        case JUMP:
+                            pc = b;
+                            continue;
+                        case TEST_FALSE:
+                            if (!Expressions.truth(stack[--sp], (CType) code.constants[a])) pc = b;
+                            stack[sp] = null;
+                            continue;
+                        case TO_INT:
+                            stack[sp - 1] = toInt(stack[sp - 1]);
+                            continue;
+                        case TO_DOUBLE:
+                            stack[sp - 1] = toDouble(stack[sp - 1]);
+                            continue;
+                        case CONVERT:
+                            stack[sp - 1] = Expressions.convert(stack[sp - 1], (CType) code.constants[a]);
+                            continue;
+                        case ARITH: {
+                            Expressions.Arithmetic node = (Expressions.Arithmetic) code.constants[a];
+                            Object right = stack[--sp];
+                            stack[sp] = null;
+                            if (node instanceof Expressions.IntArithmetic) {
+                                stack[sp - 1] = Expressions.IntArithmetic.apply(node.op, (Integer) stack[sp - 1], (Integer) right);
+                            } else if (node instanceof Expressions.PointerArithmetic) {
+                                boolean pointerLeft = node.left.getType().isPointer();
+                                Object pointer = pointerLeft ? stack[sp - 1] : right;
+                                int count = toInt(pointerLeft ? right : stack[sp - 1]);
+                                stack[sp - 1] = Expressions.PointerArithmetic.apply(node.op, pointer, count, node.getType().getElement());
+                            } else {
+                                stack[sp - 1] = Expressions.FloatArithmetic.apply(node.op, (Double) stack[sp - 1], (Double) right);
+                            }
+                            continue;
+                        }
+                        case RELATIONAL: {
+                            Expressions.Relational node = (Expressions.Relational) code.constants[a];
+                            Object right = stack[--sp];
+                            Object left = stack[sp - 1];
+                            stack[sp] = null;
+                            boolean result;
+                            if (node instanceof Expressions.IntRelational) {
+                                result = Expressions.IntRelational.compareInts(node.op, (Integer) left, (Integer) right);
+                            } else if (node instanceof Expressions.FloatRelational) {
+                                result = node.compare((Double) left, (Double) right);
+                            } else {
+                                result = node.compareValues(left, right);
+                            }
+                            stack[sp - 1] = result;
+                            continue;
+                        }
+                        case NOT:
+                            stack[sp - 1] = !Expressions.truth(stack[sp - 1], (CType) code.constants[a]);
+                            continue;
+                        case DEREF: {
+                            Reference pointer = (Reference) stack[sp - 1];
+                            if (pointer == null) throw new RuntimeException("Erro: Desreferência inválida.");
+                            stack[sp - 1] = pointer.get((CType) code.constants[a]);
+                            continue;
+                        }
+                        case ELEMENT_ADDRESS: {
+                            Expressions.AddressOf node = (Expressions.AddressOf) code.constants[a];
+                            stack[sp - 1] = node.element(frame, toInt(stack[sp - 1]));
+                            continue;
+                        }
+                        case INTRINSIC: {
+                            Expressions.Intrinsic node = (Expressions.Intrinsic) code.constants[a];
+                            int count = node.args.length;
+                            Object[] values = Arrays.copyOfRange(stack, sp - count, sp);
+                            for (int i = 1; i < count; i++) stack[--sp] = null;
+                            stack[sp - 1] = node.apply(values, context);
+                            continue;
+                        }
+                        case MEMBER_POINTER:
+                            stack[sp - 1] = ((Expressions.MemberPointer) code.constants[a]).apply(stack[sp - 1]);
+                            continue;
+                        case ARRAY_READ: {
+                            Expressions.ArrayRead node = (Expressions.ArrayRead) code.constants[a];
+                            int i = toInt(stack[sp - 1]);
+                            Object array = load(frame, node.slot, node.name);
+                            if (array instanceof int[]) stack[sp - 1] = ((int[]) array)[i];
+                            else if (array instanceof double[]) stack[sp - 1] = ((double[]) array)[i];
+                            else if (array instanceof char[]) stack[sp - 1] = ((char[]) array)[i];
+                            else stack[sp - 1] = ((Object[]) array)[i];
+                            continue;
+                        }
+                        case CALL: {
+                            Expressions.Call node = (Expressions.Call) code.constants[a];
+                            if (depth + 1 >= maxDepth) throw new DepthExceeded(maxDepth);
+                            Code callee = code(node.function);
+                            Frame calleeFrame = context.pushFrame(callee.frameSize);
+                            int n = node.args.length;
+                            sp -= n;
+                            System.arraycopy(stack, sp, calleeFrame.slots, 0, n);
+                            Arrays.fill(stack, sp, sp + n, null);
+
+                            long calleeKey = 0;
+                            int calleeErrors = -1;
+                            if (memo != null && node.function.getMemoIndex() >= 0) {
+                                calleeKey = MemoTable.key(node.function, calleeFrame.slots);
+                                Object cached = memo.get(node.function, calleeKey);
+                                if (cached != null) {
+                                    context.popFrame(calleeFrame, callee.frameSize);
+                                    stack[sp++] = cached;
+                                    continue;
+                                }
+                                calleeErrors = context.errorCount();
+                            }
+
+                            if (depth == callerCode.length) {
+                                int grown = depth * 2;
+                                callerCode = Arrays.copyOf(callerCode, grown);
+                                callerFrame = Arrays.copyOf(callerFrame, grown);
+                                callerPc = Arrays.copyOf(callerPc, grown);
+                                callerBase = Arrays.copyOf(callerBase, grown);
+                                callerMemoKey = Arrays.copyOf(callerMemoKey, grown);
+                                callerMemoErrors = Arrays.copyOf(callerMemoErrors, grown);
+                            }
+                            callerCode[depth] = code;
+                            callerFrame[depth] = frame;
+                            callerPc[depth] = at;
+                            callerBase[depth] = base;
+                            callerMemoKey[depth] = memoKey;
+                            callerMemoErrors[depth] = memoErrors;
+                            depth++;
+                            memoKey = calleeKey;
+                            memoErrors = calleeErrors;
+
+                            code = callee;
+                            frame = calleeFrame;
+                            base = sp;
+                            pc = 0;
+                            if (sp + code.maxStack > stack.length) {
+                                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, sp + code.maxStack));
+                            }
+                            continue;
+                        }
+                        case DECLARE:
+                            ((Statements.Declaration) code.constants[a]).reset(frame);
+                            continue;
+                        case STORE_LOCAL:
+                            frame.slots[a] = stack[--sp];
+                            stack[sp] = null;
+                            continue;
+                        case STORE_ARRAY: {
+                            Statements.ArrayAssignment node = (Statements.ArrayAssignment) code.constants[a];
+                            int i = toInt(stack[sp - 1]);
+                            Object value = stack[sp - 2];
+                            Object array = load(frame, node.slot, node.name);
+                            switch (node.elementType.getKind()) {
+                                case INT: ((int[]) array)[i] = (Integer) value; break;
+                                case FLOAT: ((double[]) array)[i] = (Double) value; break;
+                                case CHAR: ((char[]) array)[i] = (Character) value; break;
+                                default: ((Object[]) array)[i] = value;
+                            }
+                            stack[--sp] = null;
+                            stack[--sp] = null;
+                            continue;
+                        }
+                        case STORE_MEMBER: {
+                            Statements.MemberAssignment node = (Statements.MemberAssignment) code.constants[a];
+                            Object value = stack[--sp];
+                            stack[sp] = null;
+                            try {
+                                ((AggregateInstance) load(frame, node.slot, node.name)).write(node.offset, value);
+                            } catch (RuntimeException e) {
+                                context.error(e.getMessage());
+                            }
+                            continue;
+                        }
+                        case STORE_DEREF: {
+                            Reference pointer = (Reference) stack[sp - 1];
+                            if (pointer == null) throw new RuntimeException("Erro: Desreferência inválida.");
+                            pointer.set((CType) code.constants[a], stack[sp - 2]);
+                            stack[--sp] = null;
+                            stack[--sp] = null;
+                            continue;
+                        }
+                        case PRINTF: {
+                            Statements.Printf node = (Statements.Printf) code.constants[a];
+                            int n = node.args.length;
+                            sp -= n;
+                            Object[] values = Arrays.copyOfRange(stack, sp, sp + n);
+                            Arrays.fill(stack, sp, sp + n, null);
+                            Events.Io event = Events.beginIo();
+                            context.out.printf(node.format, values);
+                            Events.endIo(event, "printf");
+                            continue;
+                        }
+                        case SWITCH: {
+                            int selector = (Integer) stack[--sp];
+                            stack[sp] = null;
+                            pc = ((int[]) code.constants[b])[((SwitchTable) code.constants[a]).lookup(selector)];
+                            continue;
+                        }
+                        case RETURN:
+                            returned = stack[--sp];
+                            stack[sp] = null;
+                            break;
+                        case END:
+                            if (!code.function.type.isVoid()) {
+                                throw new RuntimeException("Erro: Função não-void '" + code.function.name + "' chegou ao fim sem 'return'.");
+                            }
+                            returned = null;
+                            break;
+                        default:
+                            throw new IllegalStateException("instrução desconhecida: " + ins[at]);
+                    }
+
+                    // Retorno: liberta o frame e continua a seguir ao CALL de quem chamou
+                    if (memoErrors >= 0 && context.errorCount() == memoErrors) memo.put(code.function, memoKey, returned);
+                    context.popFrame(frame, code.frameSize);
+                    if (depth == 0) return returned;
+                    depth--;
+                    code = callerCode[depth];
+                    frame = callerFrame[depth];
+                    pc = callerPc[depth] + 3;
+                    base = callerBase[depth];
+                    memoKey = callerMemoKey[depth];
+                    memoErrors = callerMemoErrors[depth];
+                    callerCode[depth] = null;
+                    callerFrame[depth] = null;
+                    stack[sp++] = returned;
+                }
+            } catch (DepthExceeded e) {
+                // Termina a execução: nenhum tratador dos nós o apanha
+                for (;;) {
+                    context.popFrame(frame, code.frameSize);
+                    if (depth == 0) throw e;
+                    depth--;
+                    code = callerCode[depth];
+                    frame = callerFrame[depth];
+                }
+            } catch (RuntimeException e) {
+                // Procura, da chamada atual para as anteriores, o try/catch que o interpretador recursivo usaria
+                for (;;) {
+                    Handler handler = code.handlerAt(at);
+                    if (handler != null) {
+                        context.error(e.getMessage());
+                        int height = base + handler.height;
+                        Arrays.fill(stack, height, sp, null);
+                        sp = height;
+                        pc = handler.target;
+                        break;
+                    }
+                    Arrays.fill(stack, base, sp, null);
+                    sp = base;
+                    context.popFrame(frame, code.frameSize);
+                    if (depth == 0) throw e;
+                    depth--;
+                    code = callerCode[depth];
+                    frame = callerFrame[depth];
+                    at = callerPc[depth];
+                    base = callerBase[depth];
+                    memoKey = callerMemoKey[depth];
+                    memoErrors = callerMemoErrors[depth];
+                    callerCode[depth] = null;
+                    callerFrame[depth] = null;
+                }
+            }
+        }
+    }
+}
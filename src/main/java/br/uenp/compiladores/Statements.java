@@ -0,0 +1,837 @@
+package br.uenp.compiladores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static br.uenp.compiladores.Expressions.evalAs;
+import static br.uenp.compiladores.Expressions.load;
+
+/**
+ * Nós executáveis de instrução produzidos pelo MyVisitor.
+ */
+public final class Statements {
+
+    private Statements() { }
+
+    // Arrays de escalares usam arrays primitivos: os elementos não são objetos
+    static Object newArray(CType type) {
+        switch (type.getElement().getKind()) {
+            case INT: return new int[type.getLength()];
+            case FLOAT: return new double[type.getLength()];
+            case CHAR: return new char[type.getLength()];
+            default: return new Object[type.getLength()];
+        }
+    }
+
+    // ============================================================
+    //               BLOCOS E EXPRESSÕES
+    // ============================================================
+
+    public static final class Block extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final StmtNode[] statements;
+
+        public Block(StmtNode[] statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitBlock(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            // Os escopos foram resolvidos antes da execução: entrar num bloco não aloca nada
+            for (StmtNode statement : statements) {
+                int status = statement.exec(frame);
+                if (status != NORMAL) return status;
+            }
+            return NORMAL;
+        }
+    }
+
+    public static final class ExpressionStatement extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode expression;
+
+        public ExpressionStatement(ExprNode expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitExpressionStatement(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            expression.eval(frame);
+            return NORMAL;
+        }
+    }
+
+    // ============================================================
+    //               DECLARAÇÕES E ATRIBUIÇÕES
+    // ============================================================
+
+    public static final class Declaration extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType type;
+        final ExprNode init;
+
+        public Declaration(Symbol symbol, ExprNode init) {
+            this.slot = symbol.slot;
+            this.name = symbol.name;
+            this.type = symbol.type;
+            this.init = init;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitDeclaration(this);
+        }
+
+        // Cada execução da declaração reinicia o slot (ex.: declarações dentro de laços)
+        void reset(Frame frame) {
+            if (type.isArray()) {
+                frame.slots[slot] = newArray(type);
+            } else if (type.isStruct()) {
+                frame.slots[slot] = new StructInstance(type.getDefinition());
+            } else if (type.isUnion()) {
+                frame.slots[slot] = new UnionInstance(type.getDefinition());
+            } else {
+                frame.slots[slot] = null;
+            }
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            try {
+                reset(frame);
+                if (init != null) {
+                    frame.slots[slot] = evalAs(init, type, frame);
+                }
+            } catch (RuntimeException e) {
+                frame.context.error(e.getMessage());
+            }
+            return NORMAL;
+        }
+    }
+
+    public static final class LocalAssignment extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType targetType;
+        final ExprNode value;
+
+        public LocalAssignment(Symbol target, ExprNode value) {
+            this.slot = target.slot;
+            this.name = target.name;
+            this.targetType = target.type;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitLocalAssignment(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            // A compatibilidade dos tipos já foi verificada pelo TypeChecker
+            frame.slots[slot] = evalAs(value, targetType, frame);
+            return NORMAL;
+        }
+    }
+
+    public static final class ArrayAssignment extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType elementType;
+        final ExprNode index;
+        final ExprNode value;
+
+        public ArrayAssignment(Symbol array, ExprNode index, ExprNode value) {
+            this.slot = array.slot;
+            this.name = array.name;
+            this.elementType = array.type.getElement();
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitArrayAssignment(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            // O valor é calculado antes do índice, já no tipo primitivo do elemento
+            switch (elementType.getKind()) {
+                case INT: {
+                    int rhsValue = value.evalInt(frame);
+                    try {
+                        ((int[]) array(frame))[index.evalInt(frame)] = rhsValue;
+                    } catch (RuntimeException e) {
+                        frame.context.error(e.getMessage());
+                    }
+                    break;
+                }
+                case FLOAT: {
+                    double rhsValue = value.evalDouble(frame);
+                    try {
+                        ((double[]) array(frame))[index.evalInt(frame)] = rhsValue;
+                    } catch (RuntimeException e) {
+                        frame.context.error(e.getMessage());
+                    }
+                    break;
+                }
+                case CHAR: {
+                    char rhsValue = (char) value.evalInt(frame);
+                    try {
+                        ((char[]) array(frame))[index.evalInt(frame)] = rhsValue;
+                    } catch (RuntimeException e) {
+                        frame.context.error(e.getMessage());
+                    }
+                    break;
+                }
+                default: {
+                    Object rhsValue = value.eval(frame);
+                    try {
+                        ((Object[]) array(frame))[index.evalInt(frame)] = rhsValue;
+                    } catch (RuntimeException e) {
+                        frame.context.error(e.getMessage());
+                    }
+                }
+            }
+            return NORMAL;
+        }
+
+        private Object array(Frame frame) {
+            return load(frame, slot, name);
+        }
+    }
+
+    public static final class MemberAssignment extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType instanceType;
+        final String member;
+        final CType memberType;
+        final int offset;
+        final ExprNode value;
+
+        public MemberAssignment(Symbol instance, String member, ExprNode value) {
+            this.slot = instance.slot;
+            this.name = instance.name;
+            this.instanceType = instance.type;
+            this.member = member;
+            this.memberType = instance.type.getDefinition().getMemberType(member);
+            this.offset = instance.type.getDefinition().getOffset(member);
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitMemberAssignment(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Object rhsValue = evalAs(value, memberType, frame);
+            try {
+                ((AggregateInstance) load(frame, slot, name)).write(offset, rhsValue);
+            } catch (RuntimeException e) {
+                frame.context.error(e.getMessage());
+            }
+            return NORMAL;
+        }
+    }
+
+    public static final class DerefAssignment extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode pointer;
+        final CType targetType;
+        final ExprNode value;
+
+        public DerefAssignment(ExprNode pointer, ExprNode value) {
+            this.pointer = pointer;
+            this.targetType = pointer.getType().isPointer() ? pointer.getType().getElement() : CType.VOID;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitDerefAssignment(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Object rhsValue = evalAs(value, targetType, frame);
+            try {
+                Reference ptr = (Reference) pointer.eval(frame);
+                if (ptr == null) throw new RuntimeException("Erro: Desreferência inválida.");
+                ptr.set(targetType, rhsValue);
+            } catch (RuntimeException e) {
+                frame.context.error(e.getMessage());
+            }
+            return NORMAL;
+        }
+    }
+
+    // ============================================================
+    //               CONTROLO DE FLUXO
+    // ============================================================
+
+    public static final class If extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode condition;
+        final StmtNode thenBranch;
+        final StmtNode elseBranch;
+
+        public If(ExprNode condition, StmtNode thenBranch, StmtNode elseBranch) {
+            this.condition = condition;
+            this.thenBranch = thenBranch;
+            this.elseBranch = elseBranch;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitIf(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            if (condition.evalBoolean(frame)) return thenBranch.exec(frame);
+            if (elseBranch != null) return elseBranch.exec(frame);
+            return NORMAL;
+        }
+    }
+
+    public static final class While extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode condition;
+        final StmtNode body;
+
+        public While(ExprNode condition, StmtNode body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitWhile(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            while (condition.evalBoolean(frame)) {
+                int status = body.exec(frame);
+                if (status == RETURN) return RETURN;
+                if (status == BREAK) break;
+            }
+            return NORMAL;
+        }
+    }
+
+    public static final class DoWhile extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final StmtNode body;
+        final ExprNode condition;
+
+        public DoWhile(StmtNode body, ExprNode condition) {
+            this.body = body;
+            this.condition = condition;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitDoWhile(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            do {
+                int status = body.exec(frame);
+                if (status == RETURN) return RETURN;
+                if (status == BREAK) break;
+            } while (condition.evalBoolean(frame));
+            return NORMAL;
+        }
+    }
+
+    /**
+     * Um laço na forma 'for (i = a; i < b; i = i + c)', com i int, c constante
+     * e b constante ou variável int, em que o corpo não pode alterar i nem b,
+     * é executado como um laço de contagem: o limite é lido uma vez e i vive
+     * numa variável int do Java, copiada para o slot antes de cada iteração
+     * (o corpo continua a lê-lo). A condição e o incremento não são avaliados
+     * como nós. Os restantes laços 'for' seguem o caminho genérico.
+     */
+    public static final class For extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final StmtNode init;
+        final ExprNode condition;
+        final StmtNode increment;
+        final StmtNode body;
+
+        // Laço de contagem (inductionSlot < 0 no caminho genérico)
+        private final int inductionSlot;
+        private final Expressions.Op test;
+        private final ExprNode bound;
+        private final int step;
+
+        /**
+         * 'addressTaken' são os slots da função com o endereço tomado em
+         * qualquer ponto: um ponteiro para o contador ou para o limite pode
+         * chegar ao corpo por vias que este não mostra (ex.: dentro de uma
+         * struct passada a uma função), pelo que esses laços ficam no caminho
+         * genérico.
+         */
+        public For(StmtNode init, ExprNode condition, StmtNode increment, StmtNode body, Set<Integer> addressTaken) {
+            this.init = init;
+            this.condition = condition;
+            this.increment = increment;
+            this.body = body;
+
+            int slot = inductionSlot(init);
+            Integer c = slot >= 0 ? step(increment, slot) : null;
+            ExprNode b = c != null ? bound(condition, slot) : null;
+            if (b != null && invariant(body, slot, b, addressTaken)) {
+                this.inductionSlot = slot;
+                this.test = ((Expressions.Relational) condition).op;
+                this.bound = b;
+                this.step = c;
+            } else {
+                this.inductionSlot = -1;
+                this.test = null;
+                this.bound = null;
+                this.step = 0;
+            }
+        }
+
+        // 'int i = a' ou 'i = a', com i int
+        private static int inductionSlot(StmtNode init) {
+            if (init instanceof Declaration && ((Declaration) init).type == CType.INT && ((Declaration) init).init != null) {
+                return ((Declaration) init).slot;
+            }
+            if (init instanceof LocalAssignment && ((LocalAssignment) init).targetType == CType.INT) {
+                return ((LocalAssignment) init).slot;
+            }
+            return -1;
+        }
+
+        // 'i = i + c' ou 'i = i - c': o passo, ou null
+        private static Integer step(StmtNode increment, int slot) {
+            if (!(increment instanceof LocalAssignment) || ((LocalAssignment) increment).slot != slot) return null;
+            if (!(((LocalAssignment) increment).value instanceof Expressions.IntArithmetic)) return null;
+            Expressions.IntArithmetic sum = (Expressions.IntArithmetic) ((LocalAssignment) increment).value;
+            if (!isRead(sum.left, slot) || !(sum.right instanceof Expressions.Literal)) return null;
+            Object c = ((Expressions.Literal) sum.right).value;
+            if (!(c instanceof Integer)) return null;
+            if (sum.op == Expressions.Op.ADD) return (Integer) c;
+            if (sum.op == Expressions.Op.SUB) return -(Integer) c;
+            return null;
+        }
+
+        // 'i < b' (ou <=, >, >=, !=) com b constante ou variável int: o limite, ou null
+        private static ExprNode bound(ExprNode condition, int slot) {
+            if (!(condition instanceof Expressions.IntRelational)) return null;
+            Expressions.IntRelational relational = (Expressions.IntRelational) condition;
+            if (relational.op == Expressions.Op.EQ || !isRead(relational.left, slot)) return null;
+            ExprNode b = relational.right;
+            if (b instanceof Expressions.Literal && ((Expressions.Literal) b).value instanceof Integer) return b;
+            if (b instanceof Expressions.LocalRead && b.getType() == CType.INT && ((Expressions.LocalRead) b).slot != slot) return b;
+            return null;
+        }
+
+        private static boolean isRead(ExprNode node, int slot) {
+            return node instanceof Expressions.LocalRead && node.getType() == CType.INT
+                    && ((Expressions.LocalRead) node).slot == slot;
+        }
+
+        private static boolean invariant(StmtNode body, int slot, ExprNode bound, Set<Integer> addressTaken) {
+            Writes writes = new Writes();
+            body.accept(writes);
+            if (addressTaken.contains(slot) || writes.slots.contains(slot)) return false;
+            if (!(bound instanceof Expressions.LocalRead)) return true;
+            int boundSlot = ((Expressions.LocalRead) bound).slot;
+            return !addressTaken.contains(boundSlot) && !writes.slots.contains(boundSlot);
+        }
+
+        /**
+         * Slots que o corpo escreve diretamente. As escritas por ponteiro só
+         * alcançam slots com o endereço tomado, que já ficaram de fora.
+         */
+        private static final class Writes extends NodeScanner {
+            final Set<Integer> slots = new HashSet<>();
+
+            @Override
+            public Void visitDeclaration(Declaration node) {
+                slots.add(node.slot);
+                return super.visitDeclaration(node);
+            }
+
+            @Override
+            public Void visitLocalAssignment(LocalAssignment node) {
+                slots.add(node.slot);
+                return super.visitLocalAssignment(node);
+            }
+
+            @Override
+            public Void visitScanf(Scanf node) {
+                slots.add(node.slot);
+                return super.visitScanf(node);
+            }
+
+            // O primeiro argumento pode ser o destino (strcpy, memset): conta-se o seu slot, por segurança
+            @Override
+            public Void visitIntrinsic(Expressions.Intrinsic node) {
+                if (node.args.length > 0 && node.args[0] instanceof Expressions.LocalRead) {
+                    slots.add(((Expressions.LocalRead) node.args[0]).slot);
+                }
+                return super.visitIntrinsic(node);
+            }
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitFor(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            if (init != null) init.exec(frame);
+            // Se a declaração falhou o slot fica vazio e a condição genérica reporta a variável não inicializada
+            if (inductionSlot >= 0 && frame.slots[inductionSlot] != null) return execCounted(frame);
+            return execLoop(frame);
+        }
+
+        private int execCounted(Frame frame) {
+            int i = (Integer) frame.slots[inductionSlot];
+            int limit = bound.evalInt(frame);
+            while (Expressions.IntRelational.compareInts(test, i, limit)) {
+                int status = body.exec(frame);
+                if (status == RETURN) return RETURN;
+                if (status == BREAK) break;
+                i += step;
+                frame.slots[inductionSlot] = i;
+            }
+            return NORMAL;
+        }
+
+        private int execLoop(Frame frame) {
+            while (condition == null || condition.evalBoolean(frame)) {
+                int status = body.exec(frame);
+                if (status == RETURN) return RETURN;
+                if (status == BREAK) break;
+                if (increment != null) increment.exec(frame);
+            }
+            return NORMAL;
+        }
+    }
+
+    /**
+     * Os valores dos 'case' já vêm convertidos para int no rebaixamento e o
+     * 'break' de cada bloco é um nó Break no fim do respetivo corpo.
+     *
+     * Para a execução, os corpos são postos em sequência (os 'case' pela
+     * ordem do código e o 'default', que a gramática põe no fim): a
+     * SwitchTable dá o ponto de entrada e daí em diante segue-se a regra do C,
+     * passando para o bloco seguinte (incluindo o 'default') até um 'break'.
+     */
+    public static final class Switch extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode selector;
+        final int[] caseValues;
+        final StmtNode[][] caseBodies;
+        final StmtNode[] defaultBody;
+        final SwitchTable table;   // valor -> índice do 'case'; caseValues.length para o default (ou o fim)
+        final StmtNode[] sequence; // Todos os corpos, em sequência
+        final int[] starts;        // Índice em 'sequence' onde começa cada 'case' (e, no fim, o default)
+
+        public Switch(ExprNode selector, int[] caseValues, StmtNode[][] caseBodies, StmtNode[] defaultBody) {
+            this.selector = selector;
+            this.caseValues = caseValues;
+            this.caseBodies = caseBodies;
+            this.defaultBody = defaultBody;
+            this.table = SwitchTable.of(caseValues, caseValues.length);
+
+            List<StmtNode> all = new ArrayList<>();
+            this.starts = new int[caseValues.length + 1];
+            for (int i = 0; i < caseBodies.length; i++) {
+                starts[i] = all.size();
+                all.addAll(Arrays.asList(caseBodies[i]));
+            }
+            starts[caseValues.length] = all.size();
+            if (defaultBody != null) all.addAll(Arrays.asList(defaultBody));
+            this.sequence = all.toArray(new StmtNode[0]);
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitSwitch(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            int entry = table.lookup(selector.evalInt(frame));
+            for (int i = starts[entry]; i < sequence.length; i++) {
+                int status = sequence[i].exec(frame);
+                if (status == BREAK) return NORMAL;
+                if (status != NORMAL) return status;
+            }
+            return NORMAL;
+        }
+    }
+
+    public static final class Return extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final ExprNode value;
+        final CType returnType;
+
+        public Return(ExprNode value, CType returnType) {
+            this.value = value;
+            this.returnType = returnType;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitReturn(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            frame.returnValue = value == null ? null : evalAs(value, returnType, frame);
+            return RETURN;
+        }
+    }
+
+    /** 'break' no fim de um bloco 'case'/'default'. */
+    public static final class Break extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitBreak(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            return BREAK;
+        }
+    }
+
+    // ============================================================
+    //               ENTRADA E SAÍDA (I/O)
+    // ============================================================
+
+    public static final class Printf extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final PrintfFormat format; // Analisado uma única vez no rebaixamento
+        final ExprNode[] args;
+
+        public Printf(PrintfFormat format, ExprNode[] args) {
+            this.format = format;
+            this.args = args;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitPrintf(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = args[i].eval(frame);
+            }
+            Events.Io event = Events.beginIo();
+            frame.context.out.printf(format, values);
+            Events.endIo(event, "printf");
+            return NORMAL;
+        }
+    }
+
+    public static final class Scanf extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        public enum Kind { INT, FLOAT, CHAR, INVALID }
+
+        final Kind kind;
+        final int slot;
+        final String name;
+        final String format;
+
+        public Scanf(Kind kind, Symbol target, String format) {
+            this.kind = kind;
+            this.slot = target.slot;
+            this.name = target.name;
+            this.format = format;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitScanf(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Events.Io event = Events.beginIo();
+            try {
+                switch (kind) {
+                    case INT: frame.slots[slot] = frame.context.input().nextInt(); break;
+                    case FLOAT: frame.slots[slot] = frame.context.input().nextDouble(); break;
+                    case CHAR: frame.slots[slot] = frame.context.input().nextChar(); break;
+                    default: throw new RuntimeException("Erro de tipo no scanf ou formato não suportado: " + format);
+                }
+            } catch (RuntimeException e) {
+                frame.context.error(e.getMessage());
+            }
+            Events.endIo(event, "scanf");
+            return NORMAL;
+        }
+    }
+
+    public static final class Gets extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final int slot;
+        final String name;
+        final CType type;
+
+        public Gets(Symbol target) {
+            this.slot = target.slot;
+            this.name = target.name;
+            this.type = target.type;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitGets(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Events.Io event = Events.beginIo();
+            try {
+                char[] buffer = (char[]) load(frame, slot, name);
+                CRuntime.copyString(frame.context.input().next(), buffer);
+            } catch (RuntimeException e) {
+                frame.context.error(e.getMessage());
+            }
+            Events.endIo(event, "gets");
+            return NORMAL;
+        }
+    }
+
+    public static final class Puts extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final String text; // Já sem aspas e com '\n' decodificado
+
+        public Puts(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return visitor.visitPuts(this);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Events.Io event = Events.beginIo();
+            frame.context.out.println(text);
+            Events.endIo(event, "puts");
+            return NORMAL;
+        }
+    }
+
+    // ============================================================
+    //               PERFIL (--profile)
+    // ============================================================
+
+    /**
+     * Conta as execuções de uma instrução na sua linha do código fonte. Só é
+     * criado pelo MyVisitor no modo --profile, e é transparente para os passos
+     * sobre os nós: o accept visita diretamente a instrução.
+     */
+    public static final class ProfiledLine extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final int line;
+        final StmtNode statement;
+
+        public ProfiledLine(int line, StmtNode statement) {
+            this.line = line;
+            this.statement = statement;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return statement.accept(visitor);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Profiler profiler = frame.context.profiler;
+            if (profiler != null) profiler.countLine(line);
+            return statement.exec(frame);
+        }
+    }
+
+    /** Corpo de uma função no modo --profile: mede o tempo de cada chamada. */
+    public static final class ProfiledBody extends StmtNode {
+        private static final long serialVersionUID = 1L;
+
+        final String function;
+        final StmtNode body;
+
+        public ProfiledBody(String function, StmtNode body) {
+            this.function = function;
+            this.body = body;
+        }
+
+        @Override
+        public <R> R accept(NodeVisitor<R> visitor) {
+            return body.accept(visitor);
+        }
+
+        @Override
+        public int exec(Frame frame) {
+            Profiler profiler = frame.context.profiler;
+            if (profiler == null) return body.exec(frame);
+            profiler.enter(function);
+            try {
+                return body.exec(frame);
+            } finally {
+                profiler.exit();
+            }
+        }
+    }
+}
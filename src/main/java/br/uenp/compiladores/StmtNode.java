@@ -0,0 +1,25 @@
+package br.uenp.compiladores;
+
+import java.io.Serializable;
+
+/**
+ * Instrução já rebaixada a partir da árvore sintática.
+ *
+ * exec() devolve um código de conclusão em vez de lançar exceções para
+ * controlo de fluxo: NORMAL segue para a instrução seguinte; RETURN sobe até
+ * à chamada (o valor fica em Frame.returnValue); BREAK e CONTINUE sobem até
+ * ao switch ou laço mais próximo.
+ */
+public abstract class StmtNode implements Serializable {
+    // Fixo em todos os nós: as entradas da cache são invalidadas pelo código das classes (ProgramCache), não por este número
+    private static final long serialVersionUID = 1L;
+
+    public static final int NORMAL = 0;
+    public static final int RETURN = 1;
+    public static final int BREAK = 2;
+    public static final int CONTINUE = 3;
+
+    public abstract int exec(Frame frame);
+
+    public abstract <R> R accept(NodeVisitor<R> visitor);
+}
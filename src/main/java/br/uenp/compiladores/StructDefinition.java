@@ -1,19 +1,43 @@
 package br.uenp.compiladores;
 
+import java.io.Serializable;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-public class StructDefinition {
-    private final Map<String, String> members; // <NomeMembro, TipoMembro>
+public class StructDefinition implements Serializable {
+    private static final long serialVersionUID = 1L;
 
-    public StructDefinition() {
+    private final String name;
+    private final boolean union;
+    private final Map<String, CType> members; // <NomeMembro, TipoMembro>
+    private final Map<String, Integer> offsets; // <NomeMembro, Slot na instância>
+
+    public StructDefinition(String name) {
+        this(name, false);
+    }
+
+    public StructDefinition(String name, boolean union) {
+        this.name = name;
+        this.union = union;
         this.members = new LinkedHashMap<>();
+        this.offsets = new HashMap<>();
     }
 
-    public void addMember(String name, String type) {
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUnion() {
+        return union;
+    }
+
+    public void addMember(String name, CType type) {
         if (members.containsKey(name)) {
             throw new RuntimeException("Erro: Membro '" + name + "' já declarado na struct.");
         }
+        // Na struct cada membro tem o seu slot, pela ordem da declaração; na union partilham o slot 0
+        offsets.put(name, union ? 0 : members.size());
         members.put(name, type);
     }
 
@@ -21,11 +45,20 @@ public class StructDefinition {
         return members.containsKey(name);
     }
 
-    public String getMemberType(String name) {
+    public CType getMemberType(String name) {
         return members.get(name);
     }
 
-    public Map<String, String> getMembers() {
+    public int getOffset(String name) {
+        return offsets.get(name);
+    }
+
+    /** Número de slots de uma instância. */
+    public int getSize() {
+        return union ? Math.min(members.size(), 1) : members.size();
+    }
+
+    public Map<String, CType> getMembers() {
         return members;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package br.uenp.compiladores;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Despacho de um switch, calculado uma vez no rebaixamento: dá, para o valor
+ * do seletor, o índice do 'case' onde a execução começa (ou 'fallback', o
+ * default ou o fim do switch, se nenhum corresponder).
+ *
+ * Valores compactos (ex.: as opções 1..9 de um menu) usam uma tabela direta
+ * indexada por valor - mínimo; valores esparsos usam uma tabela de dispersão
+ * de int para int com endereçamento aberto. Em ambos os casos o custo não
+ * depende do número de 'case'.
+ */
+public final class SwitchTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // A tabela direta é usada enquanto não tiver mais do que este fator de posições por 'case' (ou poucas posições)
+    private static final int DENSE_FACTOR = 3;
+    private static final int SMALL_RANGE = 16;
+
+    private final int fallback;
+    private final int min;
+    private final int[] dense;   // null na forma esparsa
+    private final int[] keys;    // Forma esparsa: valores dos 'case'...
+    private final int[] entries; // ...e os respetivos índices (-1: posição livre)
+    private final int mask;
+
+    private SwitchTable(int fallback, int min, int[] dense, int[] keys, int[] entries) {
+        this.fallback = fallback;
+        this.min = min;
+        this.dense = dense;
+        this.keys = keys;
+        this.entries = entries;
+        this.mask = keys != null ? keys.length - 1 : 0;
+    }
+
+    /** Tabela para 'case' com os valores dados (distintos), em que o índice i corresponde a values[i]. */
+    public static SwitchTable of(int[] values, int fallback) {
+        if (values.length == 0) return new SwitchTable(fallback, 0, new int[0], null, null);
+
+        int min = Arrays.stream(values).min().getAsInt();
+        int max = Arrays.stream(values).max().getAsInt();
+        long range = (long) max - min + 1;
+        if (range <= Math.max(SMALL_RANGE, (long) DENSE_FACTOR * values.length)) {
+            int[] dense = new int[(int) range];
+            Arrays.fill(dense, fallback);
+            for (int i = 0; i < values.length; i++) dense[values[i] - min] = i;
+            return new SwitchTable(fallback, min, dense, null, null);
+        }
+
+        int capacity = Integer.highestOneBit(values.length * 2 - 1) << 1; // Potência de 2, pelo menos metade livre
+        int[] keys = new int[capacity];
+        int[] entries = new int[capacity];
+        Arrays.fill(entries, -1);
+        for (int i = 0; i < values.length; i++) {
+            int slot = hash(values[i]) & (capacity - 1);
+            while (entries[slot] >= 0) slot = (slot + 1) & (capacity - 1);
+            keys[slot] = values[i];
+            entries[slot] = i;
+        }
+        return new SwitchTable(fallback, 0, null, keys, entries);
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int lookup(int value) {
+        if (dense != null) {
+            long index = (long) value - min;
+            return index >= 0 && index < dense.length ? dense[(int) index] : fallback;
+        }
+        for (int slot = hash(value) & mask; entries[slot] >= 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == value) return entries[slot];
+        }
+        return fallback;
+    }
+
+    public boolean isDense() {
+        return dense != null;
+    }
+}
@@ -1,11 +1,29 @@
 package br.uenp.compiladores;
 
-public class Symbol {
-    String type;
-    Object value;
+import java.io.Serializable;
 
-    public Symbol(String type, Object value) {
+public class Symbol implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    String name;
+    CType type;
+    int slot; // Posição no frame da função (atribuída pelo Resolver)
+
+    public Symbol(String name, CType type, int slot) {
+        this.name = name;
         this.type = type;
-        this.value = value;
+        this.slot = slot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CType getType() {
+        return type;
+    }
+
+    public int getSlot() {
+        return slot;
     }
 }
\ No newline at end of file
@@ -1,24 +1,46 @@
 package br.uenp.compiladores;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Stack;
 
 public class SymbolTable {
 
+    // A pilha de escopos só é usada durante a resolução (Resolver). Em tempo de
+    // execução as variáveis vivem em slots de um Frame por chamada.
     private Stack<Map<String, Symbol>> scopeStack = new Stack<>();
-    private Map<String, FunctionSymbol> functionTable = new HashMap<>();
-    private Map<String, StructDefinition> structTable = new HashMap<>();
-    private Map<String, StructDefinition> unionTable = new HashMap<>();
+    private Stack<Integer> scopeStartSlots = new Stack<>();
+    private Map<String, FunctionSymbol> functionTable = new LinkedHashMap<>();
+    private Map<String, StructDefinition> structTable = new LinkedHashMap<>();
+    private Map<String, StructDefinition> unionTable = new LinkedHashMap<>();
     private Map<String, Object> defineTable = new HashMap<>();
+    private int nextSlot = 0;
+    private int frameSize = 0;
 
     public SymbolTable() {
         enterScope();
     }
 
     // --- Métodos de Escopo ---
-    public void enterScope() { scopeStack.push(new HashMap<String, Symbol>()); }
-    public void exitScope() { scopeStack.pop(); }
+    public void beginFunction() {
+        scopeStack.clear();
+        scopeStartSlots.clear();
+        nextSlot = 0;
+        frameSize = 0;
+        enterScope();
+    }
+    public void enterScope() {
+        scopeStack.push(new HashMap<String, Symbol>());
+        scopeStartSlots.push(nextSlot);
+    }
+    public void exitScope() {
+        scopeStack.pop();
+        // Os slots do escopo que terminou podem ser reutilizados por blocos irmãos
+        nextSlot = scopeStartSlots.pop();
+    }
+    public int getFrameSize() { return frameSize; }
     private Map<String, Symbol> getCurrentScope() { return scopeStack.peek(); }
 
     // --- Métodos de Função ---
@@ -44,8 +66,9 @@ public class SymbolTable {
         if (!structTable.containsKey(name)) throw new RuntimeException("Erro: Tipo struct '" + name + "' não definido.");
         return structTable.get(name);
     }
-    public boolean isStructType(String typeName) {
-        return typeName.startsWith("struct") && structTable.containsKey(typeName.substring(6));
+
+    public Collection<StructDefinition> getStructDefinitions() {
+        return structTable.values();
     }
 
     public void addUnionDefinition(String name, StructDefinition def) {
@@ -56,8 +79,9 @@ public class SymbolTable {
         if (!unionTable.containsKey(name)) throw new RuntimeException("Erro: Tipo union '" + name + "' não definido.");
         return unionTable.get(name);
     }
-    public boolean isUnionType(String typeName) {
-        return typeName.startsWith("union") && unionTable.containsKey(typeName.substring(5));
+
+    public Collection<StructDefinition> getUnionDefinitions() {
+        return unionTable.values();
     }
 
     public void addDefine(String name, Object value) {
@@ -69,21 +93,36 @@ public class SymbolTable {
     public Object resolveDefine(String name) { return defineTable.get(name); }
 
 
-    // --- MÉTODOS DE VARIÁVEIS (COM A CORREÇÃO PARA PONTEIROS DE STRUCT) ---
+    // --- MÉTODOS DE VARIÁVEIS (RESOLUÇÃO PARA SLOTS) ---
+
+    // Decodifica o tipo uma única vez (antes era repetido a cada execução com getText())
+    public CType resolveType(CSubsetParser.TypeContext ctx) {
+        CType base;
+        if (ctx.structType() != null) {
+            String name = ctx.structType().ID().getText();
+            base = CType.struct(name, resolveStructDefinition(name));
+        }
+        else if (ctx.unionType() != null) {
+            String name = ctx.unionType().ID().getText();
+            base = CType.union(name, resolveUnionDefinition(name));
+        }
+        else if (ctx.T_INT() != null) base = CType.INT;
+        else if (ctx.T_FLOAT() != null) base = CType.FLOAT;
+        else if (ctx.T_CHAR() != null) base = CType.CHAR;
+        else base = CType.VOID;
+        return ctx.STAR() != null ? CType.pointerTo(base) : base;
+    }
 
-    public void add(String name, String type) {
+    public Symbol add(String name, CType type) {
         Map<String, Symbol> currentScope = getCurrentScope();
         if (defineTable.containsKey(name) || functionTable.containsKey(name) || structTable.containsKey(name) || unionTable.containsKey(name)) throw new RuntimeException("Erro: Conflito de nome.");
         if (currentScope.containsKey(name)) throw new RuntimeException("Erro: Variável '" + name + "' já declarada neste escopo.");
         if (name.equals("void")) throw new RuntimeException("Erro: 'void' inválido.");
 
-        if (isStructType(type)) {
-            currentScope.put(name, new Symbol(type, new StructInstance(resolveStructDefinition(type.substring(6)))));
-        } else if (isUnionType(type)) {
-            currentScope.put(name, new Symbol(type, new UnionInstance(resolveUnionDefinition(type.substring(5)))));
-        } else {
-            currentScope.put(name, new Symbol(type, null));
-        }
+        Symbol symbol = new Symbol(name, type, nextSlot++);
+        frameSize = Math.max(frameSize, nextSlot);
+        currentScope.put(name, symbol);
+        return symbol;
     }
 
     private Symbol find(String name) {
@@ -94,79 +133,16 @@ public class SymbolTable {
         return null;
     }
 
-    public void assign(String name, Object value) {
-        // CORREÇÃO: Suporte para ponteiros apontando para membros (ex: "p1.x")
-        if (name.contains(".")) {
-            String[] parts = name.split("\\.");
-            String instanceName = parts[0];
-            String memberName = parts[1];
-            Symbol symbol = find(instanceName);
-            if (symbol != null) {
-                if (symbol.value instanceof StructInstance) {
-                    ((StructInstance) symbol.value).write(memberName, value);
-                    return;
-                } else if (symbol.value instanceof UnionInstance) {
-                    ((UnionInstance) symbol.value).write(memberName, value);
-                    return;
-                }
-            }
-            // Se não encontrou ou não é struct, cai no erro padrão abaixo
-        }
-
+    public Symbol lookup(String name) {
         Symbol symbol = find(name);
         if (symbol == null) {
             throw new RuntimeException("Erro: Variável '" + name + "' não declarada.");
         }
-
-        if (symbol.value instanceof StructInstance || symbol.value instanceof UnionInstance) {
-            boolean isArrayInit = (value instanceof Object[]);
-            boolean isStructCopy = (value instanceof StructInstance);
-            boolean isUnionCopy = (value instanceof UnionInstance);
-            if (!isArrayInit && !isStructCopy && !isUnionCopy) {
-                throw new RuntimeException("Erro: Tipo incompatível na atribuição.");
-            }
-        }
-        symbol.value = value;
-    }
-
-    public Object resolve(String name) {
-        // CORREÇÃO: Suporte para ler ponteiros de membros (ex: "p1.x")
-        if (name.contains(".")) {
-            String[] parts = name.split("\\.");
-            String instanceName = parts[0];
-            String memberName = parts[1];
-            Symbol symbol = find(instanceName);
-            if (symbol != null) {
-                if (symbol.value instanceof StructInstance) {
-                    return ((StructInstance) symbol.value).read(memberName);
-                } else if (symbol.value instanceof UnionInstance) {
-                    return ((UnionInstance) symbol.value).read(memberName);
-                }
-            }
-        }
-
-        Symbol symbol = find(name);
-        if (symbol == null) {
-            throw new RuntimeException("Erro: Variável '" + name + "' não declarada.");
-        }
-        if (symbol.value instanceof StructInstance || symbol.value instanceof UnionInstance) {
-            return symbol.value;
-        }
-        Object value = symbol.value;
-        if (value == null) {
-            throw new RuntimeException("Erro: Variável '" + name + "' pode não ter sido inicializada.");
-        }
-        return value;
+        return symbol;
     }
 
-    public String getType(String name) {
-        // Nota: getType simples não suporta "p1.x" facilmente,
-        // mas para o interpretador básico isto raramente é chamado para membros.
-        Symbol symbol = find(name);
-        if (symbol == null) {
-            throw new RuntimeException("Erro: Variável '" + name + "' não declarada.");
-        }
-        return symbol.type;
+    public Map<String, FunctionSymbol> getFunctions() {
+        return functionTable;
     }
 
     public boolean isFunction(String name) {
@@ -0,0 +1,284 @@
+package br.uenp.compiladores;
+
+/**
+ * Análise semântica de tipos sobre o programa já rebaixado. Cada ExprNode
+ * traz o seu tipo C estático (decidido no MyVisitor a partir das
+ * declarações, parâmetros e membros); este passo verifica que os operandos,
+ * atribuições, argumentos e retornos são compatíveis e rejeita o programa
+ * antes da execução, em vez de o erro surgir a meio, em cada operação.
+ *
+ * Depois deste passo o executor pode confiar nos tipos: uma expressão int
+ * produz sempre um int, um slot de struct guarda sempre uma instância dessa
+ * struct, e assim por diante.
+ */
+public class TypeChecker extends NodeScanner {
+
+    private FunctionSymbol currentFunction;
+
+    public void check(Program program) {
+        for (FunctionSymbol function : program.getFunctions().values()) {
+            currentFunction = function;
+            scan(function.getBody());
+        }
+        currentFunction = null;
+    }
+
+    /** Verifica um trecho que não ficou na árvore da função (ex.: o ramo morto de um 'if' constante). */
+    public void check(FunctionSymbol function, StmtNode node) {
+        currentFunction = function;
+        scan(node);
+        currentFunction = null;
+    }
+
+    private RuntimeException error(String message) {
+        return new RuntimeException("Erro de tipo em '" + currentFunction.getName() + "': " + message);
+    }
+
+    // ============================================================
+    //               REGRAS
+    // ============================================================
+
+    private void requireArithmetic(ExprNode node, String context) {
+        if (!node.getType().isArithmetic()) {
+            throw error(context + " requer um valor numérico, mas recebeu '" + node.getType() + "'.");
+        }
+    }
+
+    private void requireIntegral(ExprNode node, String context) {
+        CType type = node.getType();
+        if (type != CType.INT && type != CType.CHAR) {
+            throw error(context + " requer um valor inteiro, mas recebeu '" + type + "'.");
+        }
+    }
+
+    // Condições (if, ciclos, '!', '&&', '||'): um número ou um ponteiro, falso se nulo
+    private void requireCondition(ExprNode node, String context) {
+        if (!node.getType().isArithmetic() && !node.getType().isPointer()) {
+            throw error(context + " requer um valor numérico ou um ponteiro, mas recebeu '" + node.getType() + "'.");
+        }
+    }
+
+    // Conversões implícitas permitidas numa atribuição, argumento ou retorno
+    private void requireAssignable(CType target, ExprNode value, String context) {
+        CType source = value.getType();
+        if (source.isVoid()) throw error(context + ": uma expressão 'void' não tem valor.");
+        if (target.isArray()) throw error(context + ": não é possível atribuir a um array ('" + target + "').");
+
+        boolean ok;
+        if (target.isArithmetic()) ok = source.isArithmetic();
+        else if (target.isPointer()) ok = pointersCompatible(target, source) || isNull(value);
+        else ok = target.equals(source); // Structs e unions: apenas o mesmo tipo
+        if (!ok) throw error(context + ": '" + source + "' não é compatível com '" + target + "'.");
+    }
+
+    // O mesmo tipo, ou void* de/para qualquer ponteiro (o resultado do malloc)
+    private static boolean pointersCompatible(CType a, CType b) {
+        if (!a.isPointer() || !b.isPointer()) return false;
+        return a.equals(b) || a.getElement().isVoid() || b.getElement().isVoid();
+    }
+
+    // A constante 0, que num contexto de ponteiro é o NULL
+    private static boolean isNull(ExprNode node) {
+        return node instanceof Expressions.Literal && node.getType() == CType.INT
+                && Integer.valueOf(0).equals(((Expressions.Literal) node).value);
+    }
+
+    // ============================================================
+    //               EXPRESSÕES
+    // ============================================================
+
+    @Override
+    public Void visitArrayRead(Expressions.ArrayRead node) {
+        requireIntegral(node.index, "O índice de '" + node.name + "'");
+        return super.visitArrayRead(node);
+    }
+
+    @Override
+    public Void visitNot(Expressions.Not node) {
+        requireCondition(node.operand, "O operador '!'");
+        return super.visitNot(node);
+    }
+
+    @Override
+    public Void visitArithmetic(Expressions.Arithmetic node) {
+        if (node instanceof Expressions.PointerArithmetic) {
+            // Só p + n, n + p e p - n, em elementos do tipo apontado
+            boolean pointerLeft = node.left.getType().isPointer();
+            ExprNode pointer = pointerLeft ? node.left : node.right;
+            ExprNode count = pointerLeft ? node.right : node.left;
+            boolean supported = node.op == Expressions.Op.ADD || (node.op == Expressions.Op.SUB && pointerLeft);
+            if (!supported || count.getType().isPointer()) {
+                throw error("Operação '" + node.op + "' entre '" + node.left.getType() + "' e '" + node.right.getType() + "' não suportada.");
+            }
+            requireIntegral(count, "A aritmética de ponteiros");
+            if (pointer.getType().getElement().isVoid()) throw error("Aritmética sobre um ponteiro 'void*'.");
+            return super.visitArithmetic(node);
+        }
+        requireArithmetic(node.left, "A operação aritmética");
+        requireArithmetic(node.right, "A operação aritmética");
+        return super.visitArithmetic(node);
+    }
+
+    @Override
+    public Void visitRelational(Expressions.Relational node) {
+        if (node.left.getType().isPointer() || node.right.getType().isPointer()) {
+            // Ponteiros só se comparam por igualdade, entre si ou com o NULL (0)
+            boolean operands = pointersCompatible(node.left.getType(), node.right.getType()) || isNull(node.left) || isNull(node.right);
+            boolean equality = node.op == Expressions.Op.EQ || node.op == Expressions.Op.NEQ;
+            if (!operands || !equality) {
+                throw error("Comparação '" + node.op + "' entre '" + node.left.getType() + "' e '" + node.right.getType() + "' não suportada.");
+            }
+            return super.visitRelational(node);
+        }
+        requireArithmetic(node.left, "A comparação");
+        requireArithmetic(node.right, "A comparação");
+        return super.visitRelational(node);
+    }
+
+    @Override
+    public Void visitLogicalAnd(Expressions.LogicalAnd node) {
+        requireCondition(node.left, "O operador '&&'");
+        requireCondition(node.right, "O operador '&&'");
+        return super.visitLogicalAnd(node);
+    }
+
+    @Override
+    public Void visitLogicalOr(Expressions.LogicalOr node) {
+        requireCondition(node.left, "O operador '||'");
+        requireCondition(node.right, "O operador '||'");
+        return super.visitLogicalOr(node);
+    }
+
+    @Override
+    public Void visitCall(Expressions.Call node) {
+        for (int i = 0; i < node.args.length; i++) {
+            Symbol param = node.function.getParameters().get(i);
+            requireAssignable(param.type, node.args[i], "Argumento '" + param.name + "' de '" + node.function.getName() + "'");
+        }
+        return super.visitCall(node);
+    }
+
+    @Override
+    public Void visitIntrinsic(Expressions.Intrinsic node) {
+        String function = "'" + node.kind.name().toLowerCase() + "'";
+        for (int i = 0; i < node.args.length; i++) {
+            ExprNode arg = node.args[i];
+            String context = "O argumento " + (i + 1) + " de " + function;
+            if (node.kind.isCount(i)) {
+                requireIntegral(arg, context);
+            } else if (node.kind == Expressions.Intrinsic.Kind.FREE) {
+                if (!arg.getType().isPointer() && !isNull(arg)) throw error(context + " requer um ponteiro, mas recebeu '" + arg.getType() + "'.");
+            } else if (node.kind == Expressions.Intrinsic.Kind.MEMSET || node.kind == Expressions.Intrinsic.Kind.MEMCPY) {
+                if (!arg.getType().isArray() || !arg.getType().getElement().isArithmetic()) {
+                    throw error(context + " requer um array de int, float ou char, mas recebeu '" + arg.getType() + "'.");
+                }
+            } else if (!arg.getType().isArray() || arg.getType().getElement() != CType.CHAR) {
+                throw error(context + " requer um array de char, mas recebeu '" + arg.getType() + "'.");
+            }
+        }
+        if (node.kind == Expressions.Intrinsic.Kind.MEMCPY && node.args[0].getType().getElement() != node.args[1].getType().getElement()) {
+            throw error("'memcpy' entre arrays de tipos diferentes ('" + node.args[0].getType() + "' e '" + node.args[1].getType() + "').");
+        }
+        boolean writes = node.kind.header.equals("<string.h>")
+                && node.kind != Expressions.Intrinsic.Kind.STRLEN && node.kind != Expressions.Intrinsic.Kind.STRCMP;
+        if (writes && node.args[0] instanceof Expressions.Literal) {
+            throw error("o destino de " + function + " não pode ser uma string literal.");
+        }
+        return super.visitIntrinsic(node);
+    }
+
+    // ============================================================
+    //               INSTRUÇÕES
+    // ============================================================
+
+    @Override
+    public Void visitDeclaration(Statements.Declaration node) {
+        if (node.init != null) requireAssignable(node.type, node.init, "Inicialização de '" + node.name + "'");
+        return super.visitDeclaration(node);
+    }
+
+    @Override
+    public Void visitLocalAssignment(Statements.LocalAssignment node) {
+        requireAssignable(node.targetType, node.value, "Atribuição a '" + node.name + "'");
+        return super.visitLocalAssignment(node);
+    }
+
+    @Override
+    public Void visitArrayAssignment(Statements.ArrayAssignment node) {
+        requireIntegral(node.index, "O índice de '" + node.name + "'");
+        requireAssignable(node.elementType, node.value, "Atribuição a '" + node.name + "[]'");
+        return super.visitArrayAssignment(node);
+    }
+
+    @Override
+    public Void visitMemberAssignment(Statements.MemberAssignment node) {
+        requireAssignable(node.memberType, node.value, "Atribuição a '" + node.name + "." + node.member + "'");
+        return super.visitMemberAssignment(node);
+    }
+
+    @Override
+    public Void visitDerefAssignment(Statements.DerefAssignment node) {
+        requireAssignable(node.targetType, node.value, "Atribuição através de ponteiro");
+        return super.visitDerefAssignment(node);
+    }
+
+    @Override
+    public Void visitIf(Statements.If node) {
+        requireCondition(node.condition, "A condição do 'if'");
+        return super.visitIf(node);
+    }
+
+    @Override
+    public Void visitWhile(Statements.While node) {
+        requireCondition(node.condition, "A condição do 'while'");
+        return super.visitWhile(node);
+    }
+
+    @Override
+    public Void visitDoWhile(Statements.DoWhile node) {
+        requireCondition(node.condition, "A condição do 'do-while'");
+        return super.visitDoWhile(node);
+    }
+
+    @Override
+    public Void visitFor(Statements.For node) {
+        if (node.condition != null) requireCondition(node.condition, "A condição do 'for'");
+        return super.visitFor(node);
+    }
+
+    @Override
+    public Void visitSwitch(Statements.Switch node) {
+        requireIntegral(node.selector, "O 'switch'");
+        return super.visitSwitch(node);
+    }
+
+    @Override
+    public Void visitReturn(Statements.Return node) {
+        if (node.value != null) requireAssignable(node.returnType, node.value, "Retorno de '" + currentFunction.getName() + "'");
+        return super.visitReturn(node);
+    }
+
+    @Override
+    public Void visitPrintf(Statements.Printf node) {
+        for (ExprNode arg : node.args) {
+            if (arg.getType().isVoid()) throw error("Argumento do printf: uma expressão 'void' não tem valor.");
+        }
+        return super.visitPrintf(node);
+    }
+
+    @Override
+    public Void visitScanf(Statements.Scanf node) {
+        if (node.kind == Statements.Scanf.Kind.INVALID) {
+            throw error("scanf com formato '" + node.format + "' incompatível com '" + node.name + "' ou não suportado.");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGets(Statements.Gets node) {
+        if (!node.type.isArray() || node.type.getElement() != CType.CHAR) {
+            throw error("'gets' espera um array de char, mas '" + node.name + "' é '" + node.type + "'.");
+        }
+        return null;
+    }
+}
@@ -1,29 +1,14 @@
 package br.uenp.compiladores;
 
-public class UnionInstance {
-    private final StructDefinition definition;
-    private Object value; // Apenas um valor para todos os membros
+public class UnionInstance extends AggregateInstance {
 
     public UnionInstance(StructDefinition definition) {
-        // Reutilizamos StructDefinition porque o "plano" é o mesmo
-        this.definition = definition;
-        this.value = null;
+        // Reutilizamos StructDefinition porque o "plano" é o mesmo: todos os membros têm deslocamento 0
+        super(definition);
     }
 
-    public void write(String memberName, Object value) {
-        if (!definition.hasMember(memberName)) {
-            throw new RuntimeException("Erro: Union não possui membro '" + memberName + "'.");
-        }
-        this.value = value;
+    @Override
+    protected String kind() {
+        return "union";
     }
-
-    public Object read(String memberName) {
-        if (!definition.hasMember(memberName)) {
-            throw new RuntimeException("Erro: Union não possui membro '" + memberName + "'.");
-        }
-        if (value == null) {
-            throw new RuntimeException("Erro: Lendo membro de union ('" + memberName + "') não inicializado.");
-        }
-        return value;
-    }
-}
\ No newline at end of file
+}
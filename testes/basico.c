@@ -0,0 +1,66 @@
+#include <stdio.h>
+#define N 5
+#define TAXA 1.5
+
+struct Ponto {
+    int x;
+    int y;
+};
+
+union Valor {
+    int i;
+    float f;
+};
+
+int fatorial(int n) {
+    if (n <= 1) {
+        return 1;
+    }
+    return n * fatorial(n - 1);
+}
+
+void troca(int *a, int *b) {
+    int t = *a;
+    *a = *b;
+    *b = t;
+}
+
+int main() {
+    int v[5];
+    int i;
+    for (i = 0; i < N; i = i + 1) {
+        v[i] = (N - i) * 3;
+    }
+    troca(&v[0], &v[4]);
+    printf("v = %d %d %d %d %d\n", v[0], v[1], v[2], v[3], v[4]);
+    int soma = 0;
+    for (i = 0; i < N; i = i + 1) {
+        soma = soma + v[i];
+    }
+    printf("media = %f\n", soma / 5.0);
+    printf("5! = %d\n", fatorial(5));
+
+    struct Ponto p;
+    p.x = 2;
+    p.y = p.x * 10;
+    int *py = &p.y;
+    *py = *py + 1;
+    printf("p = (%d, %d)\n", p.x, p.y);
+
+    union Valor u;
+    u.f = TAXA * 2;
+    printf("u.f = %f\n", u.f);
+    u.i = 7;
+    printf("u.i = %d\n", u.i);
+
+    char c = 'a';
+    int n = 0;
+    while (n < 3) {
+        n = n + 1;
+    }
+    do {
+        n = n - 2;
+    } while (n > 0);
+    printf("c = %c, n = %d, 7/2 = %d, 7.0/2 = %f\n", c, n, 7 / 2, 7.0 / 2);
+    return 0;
+}
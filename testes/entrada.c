@@ -0,0 +1,21 @@
+#include <stdio.h>
+
+int main() {
+    int a = 1;
+    int b = 2;
+    int c = 3;
+    float f = 0.5;
+    char nome[20];
+    scanf("%d", &a);
+    scanf("%d", &b);
+    printf("a=%d b=%d\n", a, b);
+    gets(nome);
+    puts("nome:");
+    printf("%s\n", nome);
+    scanf("%d", &c);
+    scanf("%f", &f);
+    printf("c=%d f=%f\n", c, f);
+    scanf("%d", &c);
+    printf("c=%d\n", c);
+    return 0;
+}
@@ -0,0 +1,80 @@
+// modos: padrao pilha
+#include <stdio.h>
+#include <stdlib.h>
+
+struct No {
+    int valor;
+    float peso;
+    struct No *prox;
+};
+
+struct No *push(struct No *lista, int v) {
+    struct No *n = malloc(sizeof(struct No));
+    n->valor = v;
+    n->peso = v * 0.5;
+    n->prox = lista;
+    return n;
+}
+
+int soma(struct No *lista) {
+    int s = 0;
+    struct No *p = lista;
+    while (p != 0) {
+        s = s + p->valor;
+        p = p->prox;
+    }
+    return s;
+}
+
+int main() {
+    struct No *lista = 0;
+    int i;
+    for (i = 1; i <= 10; i = i + 1) {
+        lista = push(lista, i);
+    }
+    printf("soma=%d\n", soma(lista));
+    printf("primeiro=%d peso=%f\n", lista->valor, lista->peso);
+    printf("sizeof=%d %d %d %d\n", sizeof(struct No), sizeof(int), sizeof(char), sizeof(float *));
+
+    int *v = calloc(5, sizeof(int));
+    printf("calloc zero=%d\n", v[3]);
+    for (i = 0; i < 5; i = i + 1) {
+        v[i] = i * i;
+    }
+    int *q = v + 2;
+    printf("v[4]=%d *q=%d q[1]=%d\n", v[4], *q, q[1]);
+    *(q - 1) = 77;
+    printf("v[1]=%d\n", v[1]);
+    free(v);
+    int *w = malloc(20);
+    if (w == v) {
+        printf("bloco reutilizado\n");
+    }
+
+    char *s = malloc(4);
+    s[0] = 'o'; s[1] = 'k'; s[2] = 0;
+    printf("%c%c\n", s[0], s[1]);
+
+    struct No local;
+    local.valor = 3;
+    struct No *pl = &local;
+    pl->valor = pl->valor * 10;
+    printf("local=%d\n", local.valor);
+
+    int x = 5;
+    int *px = &x;
+    if (px) {
+        printf("px=%d\n", *px);
+    }
+    struct No *p = lista;
+    while (p) {
+        struct No *prox = p->prox;
+        free(p);
+        p = prox;
+    }
+    free(0);
+    free(w);
+    free(w);
+    printf("nao chega\n");
+    return 0;
+}
@@ -0,0 +1,21 @@
+// modos: padrao pilha
+// opcoes: -Dcsubset.heap.size=256
+#include <stdio.h>
+#include <stdlib.h>
+
+int main() {
+    int n = 0;
+    int *p = malloc(40);
+    while (p != 0) {
+        n = n + 1;
+        p = malloc(40);
+    }
+    printf("blocos de 40 bytes: %d\n", n);
+    int *grande = malloc(1000);
+    if (!grande) {
+        printf("malloc(1000) devolveu NULL\n");
+    }
+    *grande = 1;
+    printf("continua\n");
+    return 0;
+}
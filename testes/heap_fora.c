@@ -0,0 +1,27 @@
+// modos: padrao pilha
+// Um acesso que passa do fim do bloco estragaria o cabeçalho do bloco seguinte
+#include <stdio.h>
+#include <stdlib.h>
+
+struct Caixa {
+    int *p;
+};
+
+int main() {
+    int *v = malloc(4 * sizeof(int));
+    int *w = malloc(4 * sizeof(int));
+    int i;
+    for (i = 0; i < 4; i = i + 1) {
+        v[i] = i;
+        w[i] = 10 * i;
+    }
+    struct Caixa *c = malloc(sizeof(struct Caixa));
+    c->p = v + 3;
+    int *q = c->p;
+    printf("v[3]=%d via ponteiro guardado=%d\n", v[3], *q);
+    free(w);
+    printf("w libertado\n");
+    v[4] = 99;
+    printf("continua\n");
+    return 0;
+}
@@ -0,0 +1,14 @@
+// modos: padrao pilha
+// Ler um bloco depois do free falha em vez de devolver o ponteiro da lista de blocos livres
+#include <stdio.h>
+#include <stdlib.h>
+
+int main() {
+    int *v = malloc(2 * sizeof(int));
+    v[0] = 1;
+    v[1] = 2;
+    printf("soma=%d\n", v[0] + v[1]);
+    free(v);
+    printf("v[0]=%d\n", v[0]);
+    return 0;
+}
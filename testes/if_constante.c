@@ -0,0 +1,14 @@
+// modos: padrao pilha
+// O ramo morto de um 'if' constante é podado, mas continua a ser verificado pelo TypeChecker
+#include <stdio.h>
+
+struct P { int x; };
+
+int main() {
+    struct P p;
+    p.x = 1;
+    if (1) { printf("vivo\n"); } else { printf("morto\n"); }
+    if (0) { p = 3.5; }
+    printf("ok\n");
+    return 0;
+}
@@ -0,0 +1,22 @@
+#include <stdio.h>
+
+struct Caixa {
+    int *p;
+};
+
+void empurra(struct Caixa b) {
+    *b.p = 100;
+}
+
+int main() {
+    int i;
+    int c = 0;
+    struct Caixa b;
+    b.p = &i;
+    for (i = 0; i < 10; i = i + 1) {
+        c = c + 1;
+        empurra(b);
+    }
+    printf("c=%d i=%d\n", c, i);
+    return 0;
+}
@@ -0,0 +1,50 @@
+#include <stdio.h>
+
+int main() {
+    int i;
+    int s = 0;
+    for (i = 0; i < 10; i = i + 1) {
+        s = s + i;
+    }
+    printf("soma=%d i=%d\n", s, i);
+
+    for (i = 10; i > 0; i = i - 3) {
+        printf("%d ", i);
+    }
+    printf("fim=%d\n", i);
+
+    for (i = 0; i <= 20; i = i + 5) {
+        s = s - i;
+    }
+    printf("ate 20: i=%d s=%d\n", i, s);
+
+    int n = 4;
+    for (i = 0; i < n; i = i + 1) {
+        if (n < 8) {
+            n = n + 1;
+        }
+    }
+    printf("limite alterado: i=%d n=%d\n", i, n);
+
+    for (i = 0; i != 9; i = i + 2) {
+        i = i + 1;
+    }
+    printf("contador alterado: i=%d\n", i);
+
+    int m = 3;
+    int *pm = &m;
+    for (i = 0; i < m; i = i + 1) {
+        *pm = 1;
+    }
+    printf("limite por ponteiro: i=%d m=%d\n", i, m);
+
+    int j;
+    int total = 0;
+    for (i = 0; i < 3; i = i + 1) {
+        for (j = i; j < 3; j = j + 1) {
+            total = total + 1;
+        }
+    }
+    printf("aninhados=%d\n", total);
+    return 0;
+}
@@ -0,0 +1,58 @@
+// opcoes: -Dcsubset.memo=true
+#include <stdio.h>
+
+struct Contador {
+    int n;
+};
+
+int fib(int n) {
+    if (n < 2) {
+        return n;
+    }
+    return fib(n - 1) + fib(n - 2);
+}
+
+int binomial(int n, int k) {
+    if (k == 0) {
+        return 1;
+    }
+    if (k == n) {
+        return 1;
+    }
+    return binomial(n - 1, k - 1) + binomial(n - 1, k);
+}
+
+int mostra(int x) {
+    printf("mostra(%d) ", x);
+    return x * 2;
+}
+
+int incrementa(int *p, int x) {
+    *p = *p + 1;
+    return x + *p;
+}
+
+int chama_impura(int x) {
+    return mostra(x) + 1;
+}
+
+int conta(struct Contador c, int x) {
+    c.n = c.n + x;
+    return c.n;
+}
+
+int main() {
+    printf("fib(30)=%d\n", fib(30));
+    printf("C(20,10)=%d\n", binomial(20, 10));
+    printf("%d\n", mostra(3));
+    printf("%d\n", mostra(3));
+    int v = 0;
+    printf("%d %d\n", incrementa(&v, 10), incrementa(&v, 10));
+    printf("v=%d\n", v);
+    printf("%d\n", chama_impura(4));
+    printf("%d\n", chama_impura(4));
+    struct Contador c;
+    c.n = 1;
+    printf("%d %d c.n=%d\n", conta(c, 5), conta(c, 5), c.n);
+    return 0;
+}
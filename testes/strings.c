@@ -0,0 +1,29 @@
+#include <stdio.h>
+#include <string.h>
+int conta(int k) { return k + 1; }
+int main() {
+    char nome[20];
+    char outro[20];
+    int v[5];
+    float w[2];
+    strcpy(nome, "Ana");
+    strcpy(outro, nome);
+    strcat(outro, " Maria");
+    printf("%s (%d) %s (%d)\n", nome, strlen(nome), outro, strlen(outro));
+    int c1 = strcmp(nome, "Bia");
+    int c2 = strcmp(outro, nome);
+    printf("%d %d %d\n", strcmp(nome, "Ana"), c1, c2);
+    memset(v, 0, 20);
+    v[1] = 7;
+    int u[5];
+    memcpy(u, v, 20);
+    printf("%d %d\n", u[1], u[4]);
+    memset(w, 0, 16);
+    printf("%f\n", w[1]);
+    memset(nome, 'x', conta(2));
+    printf("%s\n", nome);
+    printf("%d\n", strlen("abc") + conta(strlen(outro)));
+    strcat(nome, "123456789012345678");
+    printf("nao chega\n");
+    return 0;
+}
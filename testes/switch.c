@@ -0,0 +1,44 @@
+#include <stdio.h>
+
+int denso(int n) {
+    switch (n) {
+        case 1: printf("um ");
+        case 2: printf("dois "); break;
+        case 5: printf("cinco ");
+        default: printf("default ");
+    }
+    printf("\n");
+    return 0;
+}
+
+int esparso(int n) {
+    int r = 0;
+    switch (n) {
+        case 7: r = 1; break;
+        case 1000: r = 2;
+        case 250000: r = r + 10; break;
+        case 99999999: r = 3; break;
+    }
+    return r;
+}
+
+int main() {
+    int i;
+    for (i = 0; i < 7; i = i + 1) {
+        printf("denso(%d): ", i);
+        denso(i);
+    }
+    printf("esparso: %d %d %d %d %d\n", esparso(7), esparso(1000), esparso(250000), esparso(99999999), esparso(8));
+    char c = 'a';
+    switch (c) {
+        case 97: printf("char a\n"); break;
+        default: printf("outro\n");
+    }
+    switch (denso(2)) {
+        case 0: printf("zero\n"); break;
+    }
+    switch (3) {
+        default: printf("so default\n");
+    }
+    return 0;
+}
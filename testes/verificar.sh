@@ -0,0 +1,57 @@
+#!/bin/bash
+# Programas de regressão. Cada testes/<nome>.c é executado no modo padrão,
+# no modo de pilha (-Dcsubset.exec=stack) e compilado para .jar (--compile),
+# e a saída de cada modo (stdout e stderr) é comparada com
+# testes/<nome>.esperado. A entrada vem de testes/<nome>.in, se existir.
+#
+# Linhas opcionais no início do programa:
+#     // modos: padrao pilha        (por omissão: padrao pilha aot)
+#     // opcoes: -Dcsubset.memo=true (propriedades para os modos interpretados)
+#
+# Uso, a partir da raiz do projeto e depois de 'mvn -B compile':
+#     testes/verificar.sh [testes/<nome>.c ...]
+
+cd "$(dirname "$0")/.." || exit 2
+ANTLR_JAR=${ANTLR_JAR:-$HOME/.m2/repository/org/antlr/antlr4-runtime/4.13.1/antlr4-runtime-4.13.1.jar}
+CP=target/classes:$ANTLR_JAR
+JAVA="java -Dfile.encoding=UTF-8 -Dsun.stdout.encoding=UTF-8 -Dsun.stderr.encoding=UTF-8"
+TMP=$(mktemp -d)
+trap 'rm -rf "$TMP"' EXIT
+
+# A linha de sucesso da análise e o prefixo dos erros fatais dependem do modo, não do programa
+normalizar() {
+    grep -v '^Análise sintática concluída com sucesso.$' | sed -E 's/^Erro durante a (análise|execução): //'
+}
+
+falhas=0
+programas=("$@")
+[ ${#programas[@]} -eq 0 ] && programas=(testes/*.c)
+for programa in "${programas[@]}"; do
+    nome=$(basename "$programa" .c)
+    esperado=testes/$nome.esperado
+    entrada=testes/$nome.in
+    [ -f "$entrada" ] || entrada=/dev/null
+    modos=$(sed -n 's|^// modos: *||p' "$programa" | head -1)
+    opcoes=$(sed -n 's|^// opcoes: *||p' "$programa" | head -1)
+    [ -n "$modos" ] || modos="padrao pilha aot"
+
+    for modo in $modos; do
+        case $modo in
+            padrao) $JAVA -Dcsubset.cache=false $opcoes -cp "$CP" br.uenp.compiladores.Main "$programa" < "$entrada" > "$TMP/saida" 2>&1 ;;
+            pilha) $JAVA -Dcsubset.cache=false -Dcsubset.exec=stack $opcoes -cp "$CP" br.uenp.compiladores.Main "$programa" < "$entrada" > "$TMP/saida" 2>&1 ;;
+            aot)
+                if ! $JAVA -cp "$CP" br.uenp.compiladores.Main --compile "$programa" -o "$TMP/$nome.jar" > "$TMP/saida" 2>&1; then
+                    echo "FALHA $nome ($modo): compilação"; cat "$TMP/saida"; falhas=$((falhas + 1)); continue
+                fi
+                $JAVA -jar "$TMP/$nome.jar" < "$entrada" > "$TMP/saida" 2>&1 ;;
+            *) echo "Modo desconhecido em $programa: $modo"; exit 2 ;;
+        esac
+        if diff -u "$esperado" <(normalizar < "$TMP/saida") > "$TMP/diff"; then
+            echo "ok    $nome ($modo)"
+        else
+            echo "FALHA $nome ($modo)"; cat "$TMP/diff"; falhas=$((falhas + 1))
+        fi
+    done
+done
+
+[ $falhas -eq 0 ] || { echo "$falhas falha(s)"; exit 1; }